@@ -0,0 +1,183 @@
+package ticTacToe;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the agents: {@link ValueIterationAgent#iterate()} and
+ * {@link PolicyIterationAgent#train()} from fresh values (and a fresh random
+ * policy), {@link QLearningAgent#train()} for {@link #EPISODES} episodes from
+ * the table it has learnt so far, with 1, 2 and 4 workers and without or with
+ * (uniform or prioritized) experience replay, a move looked up in a trained
+ * {@link Policy} and in its {@link CompiledPolicy}, and a single-threaded
+ * {@link Tournament} of {@link #GAMES} games of a {@link RetrogradeAgent}
+ * against each of {@link RewardSweep#OPPONENTS}.
+ *
+ * See {@link BenchmarkMain} for how to run them.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentBenchmarks {
+
+	/**
+	 * The number of episodes of each Q-learning operation
+	 */
+	static final int EPISODES = 1000;
+
+	/**
+	 * The number of games of each tournament
+	 */
+	static final int GAMES = 1000;
+
+	/**
+	 * The agents solved from scratch by each operation, kept apart so that
+	 * resetting them before every invocation does not weigh on the other
+	 * benchmarks
+	 */
+	@State(Scope.Thread)
+	public static class Iteration {
+
+		ValueIterationAgent valueIteration;
+
+		PolicyIterationAgent policyIteration;
+
+		@Setup
+		public void setUp() {
+			valueIteration = new ValueIterationAgent(0.9, 10, -50, -1, 0);
+			valueIteration.setConvergence(1e-9, 0);
+			policyIteration = new PolicyIterationAgent();
+		}
+
+		@Setup(Level.Invocation)
+		public void resetValues() {
+			valueIteration.initValues();
+			policyIteration.initValues();
+			policyIteration.initRandomPolicy();
+		}
+	}
+
+	/**
+	 * A Q-learning agent with {@link #workers} workers and the given kind of
+	 * {@link #replay}
+	 */
+	@State(Scope.Thread)
+	public static class QLearning {
+
+		@Param({ "1", "2", "4" })
+		int workers;
+
+		@Param({ "none", "uniform", "prioritized" })
+		String replay;
+
+		QLearningAgent agent;
+
+		@Setup
+		public void setUp() {
+			agent = new QLearningAgent(new RandomAgent(), 0.1, 0, 0.9, false, workers);
+			if (!replay.equals("none"))
+				agent.setReplay(100000, 32, 1, replay.equals("prioritized"));
+			agent.setNumEpisodes(EPISODES);
+		}
+	}
+
+	/**
+	 * A trained agent and the {@link #opponent} it plays
+	 */
+	@State(Scope.Thread)
+	public static class Match {
+
+		@Param({ "random", "aggressive", "defensive" })
+		String opponent;
+
+		Agent agent;
+
+		Agent other;
+
+		@Setup
+		public void setUp() {
+			agent = new RetrogradeAgent();
+			other = RewardSweep.opponents()[Arrays.asList(RewardSweep.OPPONENTS).indexOf(opponent)];
+		}
+	}
+
+	Policy policy;
+
+	CompiledPolicy compiledPolicy;
+
+	Game[] games;
+
+	int next;
+
+	@Setup
+	public void setUp() {
+		policy = new RetrogradeAgent().getPolicy();
+		compiledPolicy = new CompiledPolicy(policy);
+		List<Game> valid = Game.generateAllValidGames('X');
+		valid.removeIf(Game::isTerminal);
+		games = valid.toArray(new Game[0]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public double[] valueIteration(Iteration state) {
+		state.valueIteration.iterate();
+		return state.valueIteration.valueFunction;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public byte[] policyIteration(Iteration state) {
+		state.policyIteration.train();
+		return state.policyIteration.curPolicy;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Policy qLearningEpisodes(QLearning state) {
+		state.agent.train();
+		return state.agent.getPolicy();
+	}
+
+	private Game nextGame() {
+		Game g = games[next];
+		next = next + 1 == games.length ? 0 : next + 1;
+		return g;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Move policyGetMove() {
+		return policy.getMove(nextGame());
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Move compiledPolicyGetMove() {
+		return compiledPolicy.getMove(nextGame());
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Tournament.Result tournament(Match match) throws IllegalMoveException {
+		return Tournament.play(match.agent, match.other, GAMES, 1, 1);
+	}
+
+}
@@ -0,0 +1,42 @@
+package ticTacToe;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks ({@link GameBenchmarks}, {@link MDPBenchmarks},
+ * {@link AgentBenchmarks}, {@link EnvironmentBenchmarks} and
+ * {@link GameServerBenchmarks}) with the GC profiler, which adds the bytes
+ * allocated per operation to each result, and writes the results as JSON, to
+ * keep as a baseline or compare with one.
+ *
+ * The benchmarks are built by the Maven profile {@code benchmarks}, with the
+ * tests, so that neither they nor JMH are part of the main artifact. Run them
+ * with {@code mvn -Pbenchmarks test-compile exec:exec}, adding
+ * {@code -Djmh.results=<file>} and {@code -Djmh.include=<regex>} to change
+ * where the results go (jmh-results.json by default) and which benchmarks run,
+ * or with {@code java ticTacToe.BenchmarkMain [results file] [benchmark regex]}
+ * on the test class path. Passing {@code -prof gc} to the JMH command line
+ * runner does the same. The committed baseline is jmh/baseline.json.
+ *
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException {
+		String results = args.length > 0 ? args[0] : "jmh-results.json";
+		String include = args.length > 1 ? args[1] : "ticTacToe\\..*Benchmarks";
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(results)
+				.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,85 @@
+package ticTacToe;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the reinforcement learning environments: one
+ * {@link BatchedTTTEnvironment#step(int[], double[], int[], boolean[])} of
+ * {@link #GAMES} games, and one {@link TTTEnvironment#step(int)}, both with
+ * random moves for X against a random opponent. Divide the batched time by
+ * {@link #GAMES} to compare the two per move.
+ *
+ * See {@link BenchmarkMain} for how to run them.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentBenchmarks {
+
+	/**
+	 * The number of games in the batch
+	 */
+	static final int GAMES = 4096;
+
+	BatchedTTTEnvironment batch;
+
+	int[] cells;
+
+	double[] rewards;
+
+	int[] next;
+
+	boolean[] done;
+
+	TTTEnvironment env;
+
+	SplittableRandom random;
+
+	@Setup
+	public void setUp() {
+		batch = new BatchedTTTEnvironment(GAMES, BatchedTTTEnvironment.Opponent.RANDOM, 1);
+		cells = new int[GAMES];
+		rewards = new double[GAMES];
+		next = new int[GAMES];
+		done = new boolean[GAMES];
+		env = new TTTEnvironment();
+		random = new SplittableRandom(2);
+	}
+
+	private int randomCell(int legal) {
+		return Game.nthCell(legal, random.nextInt(Integer.bitCount(legal)));
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public double[] batchedStep() throws IllegalMoveException {
+		for (int i = 0; i < GAMES; i++)
+			cells[i] = randomCell(batch.getLegalMoves(i));
+		batch.step(cells, rewards, next, done);
+		return rewards;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public double singleStep() throws IllegalMoveException {
+		if (env.isTerminal())
+			env.reset();
+		return env.step(randomCell(env.getLegalMoveMask()));
+	}
+
+}
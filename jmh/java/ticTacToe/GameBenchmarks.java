@@ -0,0 +1,114 @@
+package ticTacToe;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the game engine: {@link Game#evaluateGameState()},
+ * {@link Game#hashCode()}, a {@link HashMap} lookup keyed on the game (as for
+ * value functions, policies and q-tables), {@link Game#inverseHash(int)} and
+ * {@link Game#getAllSuccessorGames()}. Each operation is on the next of all
+ * valid games where it is X's turn (or the next hash), in turn, so the branches
+ * see the real mix of positions. {@link #treeWalk()} walks the whole game tree
+ * in place with {@link Game#makeMove(int)} and {@link Game#undoMove(int)}.
+ *
+ * See {@link BenchmarkMain} for how to run them.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmarks {
+
+	Game[] games;
+
+	HashMap<Game, Double> values;
+
+	Game root;
+
+	int next;
+
+	int nextHash;
+
+	@Setup
+	public void setUp() {
+		List<Game> valid = Game.generateAllValidGames('X');
+		games = valid.toArray(new Game[0]);
+		values = new HashMap<Game, Double>();
+		for (Game g : games)
+			values.put(g, (double) (g.hashCode() % 7));
+		root = new Game('X');
+	}
+
+	private Game nextGame() {
+		Game g = games[next];
+		next = next + 1 == games.length ? 0 : next + 1;
+		return g;
+	}
+
+	@Benchmark
+	public int evaluateGameState() {
+		return nextGame().evaluateGameState();
+	}
+
+	@Benchmark
+	public int hashCodeOfGame() {
+		return nextGame().hashCode();
+	}
+
+	@Benchmark
+	public Double hashMapGet() {
+		return values.get(nextGame());
+	}
+
+	@Benchmark
+	public Game inverseHash() {
+		int hash = nextHash;
+		nextHash = hash + 1 == Game.NUM_HASHES ? 0 : hash + 1;
+		return Game.inverseHash(hash);
+	}
+
+	@Benchmark
+	public List<Game> getAllSuccessorGames() {
+		return nextGame().getAllSuccessorGames();
+	}
+
+	/**
+	 * @return the number of nodes in the game tree below {@code g}, walked in
+	 *         place with make/undo
+	 */
+	static long countNodes(Game g) {
+		long nodes = 1;
+		if (g.isTerminal())
+			return nodes;
+		for (int empty = g.emptyMask(); empty != 0; empty &= empty - 1) {
+			int cell = Integer.numberOfTrailingZeros(empty);
+			g.makeMove(cell);
+			nodes += countNodes(g);
+			g.undoMove(cell);
+		}
+		return nodes;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public long treeWalk() {
+		return countNodes(root);
+	}
+
+}
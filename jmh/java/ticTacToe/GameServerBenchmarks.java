@@ -0,0 +1,147 @@
+package ticTacToe;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH load benchmark of a {@link GameServer} serving a frozen
+ * {@link ValueIterationAgent}. Each benchmark thread keeps a session open, a
+ * synthetic client playing O with a {@link RandomAgent}, and each operation is
+ * one game over it, from asking for a new game to its end. The sample time mode
+ * reports the percentiles of the game latency (p50, p99, ...) as well as the
+ * mean. Run it with more concurrent sessions with JMH's {@code -t} option.
+ *
+ * See {@link BenchmarkMain} for how to run them.
+ *
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class GameServerBenchmarks {
+
+	/**
+	 * The server all the sessions play against
+	 */
+	@State(Scope.Benchmark)
+	public static class Server {
+
+		GameServer server;
+
+		@Setup
+		public void setUp() throws IOException {
+			ValueIterationAgent agent = new ValueIterationAgent();
+			agent.freezePolicy();
+			server = new GameServer(agent, 0);
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			server.close();
+		}
+	}
+
+	/**
+	 * A client's session with the server
+	 */
+	@State(Scope.Thread)
+	public static class Session {
+
+		Socket socket;
+
+		BufferedReader in;
+
+		PrintWriter out;
+
+		/**
+		 * The server's player and the client's
+		 */
+		Agent x = new Agent();
+
+		RandomAgent o = new RandomAgent();
+
+		/**
+		 * Whether the server has started the first game of the session on its own,
+		 * so that no {@code NEW} is needed
+		 */
+		boolean fresh;
+
+		@Setup
+		public void setUp(Server server) throws IOException {
+			socket = new Socket(InetAddress.getLoopbackAddress(), server.server.getPort());
+			socket.setTcpNoDelay(true);
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+			fresh = true;
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			out.println("QUIT");
+			out.flush();
+			socket.close();
+		}
+	}
+
+	@Benchmark
+	public Game playGame(Session session) throws IOException, IllegalMoveException {
+		if (!session.fresh) {
+			session.out.println("NEW");
+			session.out.flush();
+		}
+		session.fresh = false;
+
+		Game game = new Game(session.x, session.o, session.x);
+		String line = session.in.readLine();
+		play(game, session.x, line);
+		while (!game.isTerminal()) {
+			Move m = session.o.getMove(game);
+			game.executeMove(m);
+			session.out.println(3 * m.x + m.y);
+			session.out.flush();
+			line = session.in.readLine();
+			// unless O's move ended the game, the reply is X's move
+			if (!game.isTerminal()) {
+				play(game, session.x, line);
+				if (game.isTerminal())
+					line = session.in.readLine();
+			}
+		}
+		if (line == null || !line.startsWith("END"))
+			throw new IOException("Expected the end of the game, got " + line);
+		return game;
+	}
+
+	/**
+	 * Plays the server's move {@code reply} (a {@code MOVE <cell>} line) in
+	 * {@code game}
+	 */
+	private static void play(Game game, Agent x, String reply) throws IOException, IllegalMoveException {
+		if (reply == null || !reply.startsWith("MOVE "))
+			throw new IOException("Expected a move, got " + reply);
+		game.executeMove(Move.of(x, Integer.parseInt(reply.substring(5))));
+	}
+
+}
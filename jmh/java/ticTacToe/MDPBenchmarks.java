@@ -0,0 +1,72 @@
+package ticTacToe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the MDP model: {@link TTTMDP#generateTransitions(Game, Move)}
+ * for each (game, move) pair in turn, and building a {@link CompiledMDP} from
+ * scratch, which calls it for every pair.
+ *
+ * See {@link BenchmarkMain} for how to run them.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MDPBenchmarks {
+
+	TTTMDP mdp;
+
+	Game[] games;
+
+	Move[] moves;
+
+	int next;
+
+	@Setup
+	public void setUp() {
+		mdp = new TTTMDP();
+		List<Game> pairGames = new ArrayList<Game>();
+		List<Move> pairMoves = new ArrayList<Move>();
+		for (Game g : Game.generateAllValidGames('X')) {
+			if (g.isTerminal())
+				continue;
+			for (Move m : g.getPossibleMoves()) {
+				pairGames.add(g);
+				pairMoves.add(m);
+			}
+		}
+		games = pairGames.toArray(new Game[0]);
+		moves = pairMoves.toArray(new Move[0]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public List<TransitionProb> generateTransitions() {
+		int i = next;
+		next = i + 1 == games.length ? 0 : i + 1;
+		return mdp.generateTransitions(games[i], moves[i]);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public CompiledMDP compile() {
+		return new CompiledMDP(mdp, StateIndex.getInstance());
+	}
+
+}
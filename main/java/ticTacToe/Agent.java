@@ -1,72 +1,163 @@
-package ticTacToe;
-
-
-public class Agent {
-	
-	/**
-	 * A Tic Tac Toe Policy
-	 */
-	protected Policy policy;
-	
-	protected char name; //'X' or 'O'
-	
-	/**
-	 * Name of the agent ('X' or 'O') is set when the agent joins the game
-	 * @param p
-	 */
-	public Agent(Policy p)
-	{
-		this.policy=p;
-	}
-	/**
-	 * new agent with no (null) policy
-	 * 
-	 */
-	public Agent()
-	{
-		this(null);
-	}
-	/**
-	 * This is the method that uses the agent's policy to return a move, given a game.
-	 * @param g the game
-	 * @return a move according to the agent's policy
-	 */
-	public Move getMove(Game g)
-	{
-		return policy.getMove(g);
-	}
-	
-	public char getName()
-	{
-		return name;
-	}
-	
-	public Policy getPolicy()
-	{
-		return policy;
-		
-	}
-	
-	public String toString()
-	{
-		return ""+this.getName();
-	}
-	
-	public void setName(char n)
-	{
-		this.name=n;
-	}
-	
-	
-	public Policy loadPolicyFromFile()
-	{
-		return null;
-	}
-	
-	
-	
-	
-	
-	
-
-}
+package ticTacToe;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class Agent {
+	
+	/**
+	 * A Tic Tac Toe Policy
+	 */
+	protected Policy policy;
+	
+	protected char name; //'X' or 'O'
+	
+	/**
+	 * Name of the agent ('X' or 'O') is set when the agent joins the game
+	 * @param p
+	 */
+	public Agent(Policy p)
+	{
+		this.policy=p;
+	}
+	/**
+	 * new agent with no (null) policy
+	 * 
+	 */
+	public Agent()
+	{
+		this(null);
+	}
+	/**
+	 * This is the method that uses the agent's policy to return a move, given a game.
+	 * @param g the game
+	 * @return a move according to the agent's policy
+	 */
+	public Move getMove(Game g)
+	{
+		return policy.getMove(g);
+	}
+	
+	public char getName()
+	{
+		return name;
+	}
+	
+	public Policy getPolicy()
+	{
+		return policy;
+		
+	}
+	
+	public String toString()
+	{
+		return ""+this.getName();
+	}
+	
+	public void setName(char n)
+	{
+		this.name=n;
+	}
+	
+	
+	/**
+	 * Replaces this agent's policy with a {@link CompiledPolicy} of it, so that {@link #getMove(Game)} is an array 
+	 * lookup. Only do this for agents that play deterministically, such as the trained ones; it freezes the moves of 
+	 * a random policy.
+	 */
+	public void freezePolicy()
+	{
+		if (policy!=null && !(policy instanceof CompiledPolicy))
+			policy=new CompiledPolicy(policy);
+	}
+	
+	/**
+	 * The system property naming the directory where trained agents cache their policies. When it is set, the
+	 * constructors of the trained agents load their policy from their file there (see {@link #policyFile()}) if it
+	 * exists, instead of training, and save it there after training otherwise. It isn't set by default, so agents always
+	 * train.
+	 */
+	public static final String POLICY_CACHE_PROPERTY="ticTacToe.policyCache";
+	
+	/**
+	 * @return the file this agent's policy is cached in, or null if it isn't cached. This agent isn't trained, so its 
+	 * policy isn't cached.
+	 */
+	protected String policyFile()
+	{
+		return null;
+	}
+	
+	/**
+	 * @param key what the policy depends on, e.g. the agent's class and training parameters
+	 * @return the cache file for a policy trained with {@code key}, named after it, or null if policies aren't cached 
+	 * (see {@link #POLICY_CACHE_PROPERTY})
+	 */
+	static String cacheFile(Object... key)
+	{
+		String directory=System.getProperty(POLICY_CACHE_PROPERTY);
+		if (directory==null)
+			return null;
+		StringBuilder name=new StringBuilder();
+		for (Object k:key)
+			name.append(name.length()==0?"":"_").append(k);
+		return Paths.get(directory, name+".pol").toString();
+	}
+	
+	/**
+	 * @return the policy saved in {@link #policyFile()}, or null if there is no such file or it can't be loaded
+	 */
+	public Policy loadPolicyFromFile()
+	{
+		String file=policyFile();
+		if (file==null || !Files.isRegularFile(Paths.get(file)))
+			return null;
+		try
+		{
+			return new Policy(file);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Saves this agent's policy to {@link #policyFile()}, if it has one. The file is only a cache, so failing to write
+	 * it isn't an error.
+	 * 
+	 * @return true if the policy was saved
+	 */
+	public boolean savePolicyToFile()
+	{
+		String file=policyFile();
+		if (file==null || policy==null)
+			return false;
+		try
+		{
+			Files.createDirectories(Paths.get(file).toAbsolutePath().getParent());
+			policy.save(file);
+			return true;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Sets this agent's policy to the one cached in {@link #policyFile()}, if there is one.
+	 * 
+	 * @return true if a cached policy was loaded, so the agent needn't be trained
+	 */
+	protected boolean loadCachedPolicy()
+	{
+		Policy p=loadPolicyFromFile();
+		if (p==null)
+			return false;
+		this.policy=p;
+		return true;
+	}
+
+}
@@ -1,43 +1,31 @@
-package ticTacToe;
-
-
-import java.util.List;
-import java.util.Random;
-/**
- * An agrgessive policy: if there is a winning move given a game state (Game object) then this policy finds it. Otherwise returns a
- * random available move.
- *  
- * @author ae187
- *
- */
-public class AggressivePolicy extends Policy {
-	
-	
-	public Move getMove(Game g) {
-		
-		
-		List<Move> moves=g.getPossibleMoves();
-		
-		for(Move m:moves)
-		{
-			
-			Game resulting=null;
-			try{
-				resulting=g.simulateMove(m);
-			}
-			catch(IllegalMoveException e)
-			{
-				System.out.println(e.getMessage());
-				e.printStackTrace();
-			}
-			if (resulting.getState()==Game.X_WON||resulting.getState()==Game.O_WON)
-				return m;
-		}
-		
-		Random r=new Random();
-		
-		return moves.get(r.nextInt(moves.size()));
-		
-	}
-
-}
+package ticTacToe;
+
+
+/**
+ * An agrgessive policy: if there is a winning move given a game state (Game object) then this policy finds it. Otherwise returns a
+ * random available move.
+ *  
+ * @author ae187
+ *
+ */
+public class AggressivePolicy extends Policy {
+	
+	
+	public Move getMove(Game g) {
+		
+		
+		int legal=g.getLegalMoveMask();
+		
+		for(int cells=legal; cells!=0; cells&=cells-1)
+		{
+			//checks the lines through the move in place, without simulating it on a copy of the game
+			int cell=Integer.numberOfTrailingZeros(cells);
+			if (g.isWinningMove(g.whoseTurn.getName(), cell))
+				return Move.of(g.whoseTurn, cell);
+		}
+		
+		return Move.of(g.whoseTurn, Game.nthCell(legal, random().nextInt(Integer.bitCount(legal))));
+		
+	}
+
+}
@@ -0,0 +1,246 @@
+package ticTacToe;
+
+import java.util.SplittableRandom;
+
+/**
+ * Many {@link TTTEnvironment}s stepped together. The games are kept in
+ * structure-of-arrays form, as the board masks and the status of each game
+ * rather than as {@link Game} objects. One call to
+ * {@link #step(int[], double[], int[], boolean[])} plays a move in every game,
+ * including the opponent's reply, and writes the rewards, next states and done
+ * flags into arrays supplied by the caller. A step allocates nothing.
+ *
+ * As in {@link TTTEnvironment}, the learner always plays X and moves first, and
+ * the opponent plays O. The opponent is one of the built-in {@link Opponent}s,
+ * which play straight on the masks. A game that ends is reset to an empty board
+ * at once, so every game is always waiting for X's move.
+ *
+ * States are given as {@link Game#hashCode()}s, which a {@link StateIndex} maps
+ * to ids (e.g. for a {@link FlatQTable}) and {@link Game#inverseHash(int)} maps
+ * back to games.
+ *
+ */
+public class BatchedTTTEnvironment {
+
+	/**
+	 * The opponents the batch can play against. They behave like
+	 * {@link RandomAgent}, {@link AggressiveAgent} and {@link DefensiveAgent}.
+	 */
+	public enum Opponent {
+		/**
+		 * Plays a random empty cell
+		 */
+		RANDOM,
+		/**
+		 * Plays the first cell that completes a line of its own, if any, and a random
+		 * empty cell otherwise
+		 */
+		AGGRESSIVE,
+		/**
+		 * Plays the first cell where X would complete a line, if any, and a random
+		 * empty cell otherwise
+		 */
+		DEFENSIVE
+	}
+
+	/**
+	 * The cells occupied by X in each game
+	 */
+	final int[] xMask;
+
+	/**
+	 * The cells occupied by O in each game
+	 */
+	final int[] oMask;
+
+	/**
+	 * The state of each game as it was left by the last step: {@link Game#ONGOING}
+	 * or how the game that ended there ended, {@link Game#X_WON},
+	 * {@link Game#O_WON} or {@link Game#DRAW}.
+	 */
+	final byte[] status;
+
+	final Opponent opponent;
+
+	final SplittableRandom random;
+
+	double winReward = 10.0;
+	double loseReward = -50.0;
+	double livingReward = -1.00;
+	double drawReward = 0.0;
+
+	/**
+	 * The number of games finished so far
+	 */
+	long episodes;
+
+	/**
+	 * {@code size} games against {@code opponent}, with the rewards of
+	 * {@link TTTEnvironment}
+	 *
+	 * @param size
+	 * @param opponent
+	 * @param seed     the seed of the opponent's random moves
+	 */
+	public BatchedTTTEnvironment(int size, Opponent opponent, long seed) {
+		if (size < 1)
+			throw new IllegalArgumentException("Need at least one game");
+		this.xMask = new int[size];
+		this.oMask = new int[size];
+		this.status = new byte[size];
+		this.opponent = opponent;
+		this.random = new SplittableRandom(seed);
+	}
+
+	public BatchedTTTEnvironment(int size, Opponent opponent, long seed, double winReward, double loseReward,
+			double livingReward, double drawReward) {
+		this(size, opponent, seed);
+		this.winReward = winReward;
+		this.loseReward = loseReward;
+		this.livingReward = livingReward;
+		this.drawReward = drawReward;
+	}
+
+	/**
+	 * @return the number of games
+	 */
+	public int size() {
+		return xMask.length;
+	}
+
+	/**
+	 * @return the {@link Game#hashCode()} of game {@code i}, where it is always
+	 *         X's turn
+	 */
+	public int getState(int i) {
+		return Game.X_CODE[xMask[i]] + Game.O_CODE[oMask[i]] + 1;
+	}
+
+	/**
+	 * @return a mask of the empty cells of game {@code i}, i.e. of X's legal
+	 *         moves
+	 */
+	public int getLegalMoves(int i) {
+		return ~(xMask[i] | oMask[i]) & Game.FULL_BOARD;
+	}
+
+	/**
+	 * @return the state game {@code i} was left in by the last step, see
+	 *         {@link #status}
+	 */
+	public int getStatus(int i) {
+		return status[i];
+	}
+
+	/**
+	 * @return the number of games finished so far
+	 */
+	public long getEpisodes() {
+		return episodes;
+	}
+
+	/**
+	 * Resets all games to an empty board
+	 */
+	public void reset() {
+		for (int i = 0; i < xMask.length; i++) {
+			xMask[i] = 0;
+			oMask[i] = 0;
+			status[i] = Game.ONGOING;
+		}
+	}
+
+	/**
+	 * Plays X's move {@code cells[i]} (3*x+y) in every game i and, unless that ends
+	 * the game, the opponent's reply. The arrays must all have {@link #size()}
+	 * elements.
+	 *
+	 * @param cells      X's move in each game, which must be a legal move, see
+	 *                   {@link #getLegalMoves(int)}
+	 * @param rewards    receives the reward of each game's move, as given by
+	 *                   {@link TTTEnvironment#executeMove(Move)}
+	 * @param nextStates receives the hash of each game after the move (and the
+	 *                   reply); for a game that ended that is the final position,
+	 *                   not the empty board it was reset to
+	 * @param done       receives whether each game ended
+	 * @throws IllegalMoveException if a cell is not empty. The games before it
+	 *                              have been stepped already.
+	 */
+	public void step(int[] cells, double[] rewards, int[] nextStates, boolean[] done) throws IllegalMoveException {
+		for (int i = 0; i < xMask.length; i++) {
+			int cell = cells[i];
+			int x = xMask[i];
+			int o = oMask[i];
+			if (cell < 0 || cell > 8 || ((x | o) & (1 << cell)) != 0)
+				throw new IllegalMoveException("Illegal Move: X in cell " + cell + " in game " + i);
+
+			int state;
+			int turn; // the last digit of the hash
+			if (Game.hasLine(x | 1 << cell)) {
+				x |= 1 << cell;
+				state = Game.X_WON;
+				turn = 2;
+			} else if (((x | o) | (1 << cell)) == Game.FULL_BOARD) {
+				x |= 1 << cell;
+				state = Game.DRAW;
+				turn = 2;
+			} else {
+				x |= 1 << cell;
+				int reply = reply(x, o);
+				if (Game.hasLine(o | 1 << reply))
+					state = Game.O_WON;
+				else if (((x | o) | (1 << reply)) == Game.FULL_BOARD)
+					state = Game.DRAW;
+				else
+					state = Game.ONGOING;
+				o |= 1 << reply;
+				turn = 1;
+			}
+
+			nextStates[i] = Game.X_CODE[x] + Game.O_CODE[o] + turn;
+			status[i] = (byte) state;
+			switch (state) {
+			case Game.X_WON:
+				rewards[i] = winReward;
+				break;
+			case Game.O_WON:
+				rewards[i] = loseReward;
+				break;
+			case Game.DRAW:
+				rewards[i] = drawReward;
+				break;
+			default:
+				rewards[i] = livingReward;
+			}
+
+			done[i] = state != Game.ONGOING;
+			if (done[i]) {
+				episodes++;
+				x = 0;
+				o = 0;
+			}
+			xMask[i] = x;
+			oMask[i] = o;
+		}
+	}
+
+	/**
+	 * @return the opponent's move (a cell) on the board {@code x}, {@code o}, which
+	 *         has at least one empty cell
+	 */
+	private int reply(int x, int o) {
+		int empty = ~(x | o) & Game.FULL_BOARD;
+		if (opponent != Opponent.RANDOM) {
+			int own = opponent == Opponent.AGGRESSIVE ? o : x;
+			for (int e = empty; e != 0; e &= e - 1) {
+				int cell = Integer.numberOfTrailingZeros(e);
+				if (Game.hasLine(own | 1 << cell))
+					return cell;
+			}
+		}
+		for (int n = random.nextInt(Integer.bitCount(empty)); n > 0; n--)
+			empty &= empty - 1;
+		return Integer.numberOfTrailingZeros(empty);
+	}
+
+}
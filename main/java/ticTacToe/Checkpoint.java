@@ -0,0 +1,289 @@
+package ticTacToe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A checkpoint file of a training run, so that it can be resumed after a
+ * restart: a {@code double[]} of values (a value function or a Q-table), an
+ * optional {@code byte[]} (e.g. a policy as cells), and how far training had
+ * got, e.g. in sweeps or episodes.
+ *
+ * The file is a header followed by the doubles and then the bytes, at fixed
+ * offsets. Snapshots are incremental: {@link #save(double[], byte[], long)}
+ * compares the arrays with the last snapshot in blocks and only rewrites the
+ * blocks that changed, in place. They are also asynchronous: the changed
+ * blocks are copied on the calling thread and written through a
+ * {@link FileChannel} on a background thread, so training goes on while they
+ * are written. A snapshot waits only for the one before it.
+ *
+ * The header, with the progress, is written and forced to disk after the
+ * blocks. A snapshot interrupted by a crash can leave some blocks newer than
+ * the progress says, which is harmless for the iterative methods that use
+ * checkpoints: they converge from any values.
+ *
+ */
+public class Checkpoint {
+
+	/**
+	 * The first 4 bytes of a checkpoint file, "TTTC"
+	 */
+	static final int MAGIC = 0x54545443;
+
+	static final int VERSION = 1;
+
+	/**
+	 * {@link #MAGIC}, {@link #VERSION}, the number of doubles and the number of
+	 * bytes as ints, and then the progress as a long, or -1 if no snapshot has
+	 * been completed
+	 */
+	static final int HEADER_BYTES = 24;
+
+	/**
+	 * Snapshots compare and rewrite the arrays in blocks of this many bytes
+	 */
+	static final int BLOCK_BYTES = 8192;
+
+	/**
+	 * Writes the snapshots of all checkpoints, in order
+	 */
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "checkpoint-writer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	final Path file;
+
+	/**
+	 * The doubles and bytes as of the last snapshot, which is what the file holds
+	 * once it has been written
+	 */
+	final double[] values;
+	final byte[] bytes;
+
+	/**
+	 * The progress of the last snapshot, or -1 if there is none
+	 */
+	long progress = -1;
+
+	/**
+	 * The write of the last snapshot
+	 */
+	private Future<?> pending;
+
+	/**
+	 * The number of blocks written by the last snapshot
+	 */
+	int lastBlocks;
+
+	/**
+	 * Opens the checkpoint in {@code file}, creating the file if it doesn't
+	 * exist. If the file holds a snapshot, it is read so that
+	 * {@link #restore(double[], byte[])} can resume from it.
+	 *
+	 * @param file
+	 * @param doubles the number of doubles in a snapshot
+	 * @param bytes   the number of bytes in a snapshot, 0 if there are none
+	 * @throws IOException if the file can't be read or written, or holds a
+	 *                     checkpoint of a different size
+	 */
+	public Checkpoint(String file, int doubles, int bytes) throws IOException {
+		this.file = Paths.get(file);
+		this.values = new double[doubles];
+		this.bytes = new byte[bytes];
+
+		if (Files.exists(this.file)) {
+			read();
+		} else {
+			try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				write(channel, header(), 0);
+			}
+		}
+	}
+
+	private void read() throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+				throw new IOException("Not a checkpoint file: " + file);
+			if (header.getInt(8) != values.length || header.getInt(12) != bytes.length)
+				throw new IOException("The checkpoint in " + file + " is of a different size");
+			progress = header.getLong(16);
+			if (progress < 0)
+				return;
+
+			ByteBuffer body = ByteBuffer.allocate(8 * values.length + bytes.length);
+			while (body.hasRemaining() && channel.read(body, HEADER_BYTES + body.position()) >= 0)
+				;
+			if (body.hasRemaining())
+				throw new IOException("Truncated checkpoint file: " + file);
+			body.flip();
+			body.asDoubleBuffer().get(values);
+			body.position(8 * values.length);
+			body.get(bytes);
+		}
+	}
+
+	/**
+	 * @return the progress of the last snapshot, or -1 if there is none
+	 */
+	public long getProgress() {
+		return progress;
+	}
+
+	/**
+	 * @return true if there is a snapshot to resume from
+	 */
+	public boolean hasSnapshot() {
+		return progress >= 0;
+	}
+
+	/**
+	 * Copies the last snapshot into {@code values} and {@code bytes}.
+	 *
+	 * @param values
+	 * @param bytes  null if the checkpoint has no bytes
+	 * @return the progress of the snapshot, or -1 (leaving the arrays unchanged)
+	 *         if there is none
+	 */
+	public long restore(double[] values, byte[] bytes) {
+		if (!hasSnapshot())
+			return -1;
+		System.arraycopy(this.values, 0, values, 0, this.values.length);
+		if (bytes != null)
+			System.arraycopy(this.bytes, 0, bytes, 0, this.bytes.length);
+		return progress;
+	}
+
+	/**
+	 * Takes a snapshot of {@code values} and {@code bytes}. The blocks that changed
+	 * since the last snapshot are copied before this returns, and written in the
+	 * background, see {@link #flush()}. Other threads may be updating
+	 * {@code values} meanwhile; the snapshot then holds some of their updates.
+	 *
+	 * @param values
+	 * @param bytes    null if the checkpoint has no bytes
+	 * @param progress how far training has got, at least 0
+	 * @throws UncheckedIOException if writing the previous snapshot failed
+	 */
+	public synchronized void save(double[] values, byte[] bytes, long progress) {
+		flush();
+
+		List<ByteBuffer> blocks = new ArrayList<ByteBuffer>();
+		List<Long> positions = new ArrayList<Long>();
+		int perBlock = BLOCK_BYTES / 8;
+		for (int from = 0; from < values.length; from += perBlock) {
+			int to = Math.min(values.length, from + perBlock);
+			boolean changed = false;
+			for (int i = from; i < to; i++) {
+				double v = values[i];
+				if (Double.doubleToRawLongBits(v) != Double.doubleToRawLongBits(this.values[i])) {
+					this.values[i] = v;
+					changed = true;
+				}
+			}
+			if (changed) {
+				ByteBuffer block = ByteBuffer.allocate(8 * (to - from));
+				block.asDoubleBuffer().put(this.values, from, to - from);
+				blocks.add(block);
+				positions.add(HEADER_BYTES + 8L * from);
+			}
+		}
+		for (int from = 0; bytes != null && from < bytes.length; from += BLOCK_BYTES) {
+			int to = Math.min(bytes.length, from + BLOCK_BYTES);
+			if (Arrays.equals(bytes, from, to, this.bytes, from, to))
+				continue;
+			System.arraycopy(bytes, from, this.bytes, from, to - from);
+			blocks.add(ByteBuffer.wrap(Arrays.copyOfRange(bytes, from, to)));
+			positions.add(HEADER_BYTES + 8L * values.length + from);
+		}
+		// the first snapshot writes everything, as the file holds no values yet
+		if (this.progress < 0)
+			blocks = allBlocks(positions);
+
+		this.progress = progress;
+		this.lastBlocks = blocks.size();
+		final List<ByteBuffer> toWrite = blocks;
+		final ByteBuffer header = header();
+		pending = WRITER.submit(() -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				for (int b = 0; b < toWrite.size(); b++)
+					write(channel, toWrite.get(b), positions.get(b));
+				channel.force(false);
+				write(channel, header, 0);
+				channel.force(false);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * @return all of the last snapshot, as blocks, with their positions in
+	 *         {@code positions}
+	 */
+	private List<ByteBuffer> allBlocks(List<Long> positions) {
+		positions.clear();
+		ByteBuffer body = ByteBuffer.allocate(8 * values.length + bytes.length);
+		body.asDoubleBuffer().put(values);
+		body.position(8 * values.length);
+		body.put(bytes);
+		body.flip();
+		positions.add((long) HEADER_BYTES);
+		List<ByteBuffer> blocks = new ArrayList<ByteBuffer>();
+		blocks.add(body);
+		return blocks;
+	}
+
+	private ByteBuffer header() {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		header.putInt(MAGIC).putInt(VERSION).putInt(values.length).putInt(bytes.length).putLong(progress);
+		header.flip();
+		return header;
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	/**
+	 * Waits until the last snapshot has been written.
+	 *
+	 * @throws UncheckedIOException if writing it failed
+	 */
+	public synchronized void flush() {
+		if (pending == null)
+			return;
+		try {
+			pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing a checkpoint", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw new UncheckedIOException((IOException) e.getCause());
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pending = null;
+		}
+	}
+
+}
@@ -0,0 +1,413 @@
+package ticTacToe;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A precomputed, read-only form of the {@link TTTMDP} over the states of a
+ * {@link StateIndex}. Every (state, move) pair is enumerated once and stored in
+ * compressed-sparse-row arrays:
+ * 
+ * the actions (moves) of state {@code s} are {@code firstAction(s)} up to but
+ * excluding {@code endAction(s)}, and the transitions of action {@code a} are
+ * {@code firstTransition(a)} up to but excluding {@code endTransition(a)}. Each
+ * transition has a successor state id, a probability and a reward, exactly as
+ * {@link TTTMDP#generateTransitions} would return them, in the same order.
+ * 
+ * Planning agents can sweep the whole MDP with these accessors without
+ * allocating anything. Terminal states have no actions.
+ * 
+ * Over a symmetric {@link StateIndex} the states are canonical games, the moves
+ * are in their frame, and transitions lead to the canonical form of the target
+ * game.
+ * 
+ * The reward parameters are baked into {@link #reward(int)}. The structure
+ * doesn't depend on them, so {@link #withRewards} makes a model for other
+ * rewards that shares all the structure arrays.
+ *
+ */
+public class CompiledMDP {
+
+	/**
+	 * The kind of outcome of a transition, which decides its reward.
+	 */
+	static final byte LIVE = 0;
+	static final byte WIN = 1;
+	static final byte LOSE = 2;
+	static final byte DRAW = 3;
+
+	final StateIndex states;
+
+	/**
+	 * The actions of state s are actionStart[s]..actionStart[s+1]-1
+	 */
+	final int[] actionStart;
+
+	/**
+	 * The cell (3*x+y) of X's move for each action
+	 */
+	final byte[] actionCell;
+
+	/**
+	 * The transitions of action a are transitionStart[a]..transitionStart[a+1]-1
+	 */
+	final int[] transitionStart;
+
+	/**
+	 * The id of the target state of each transition
+	 */
+	final int[] successor;
+
+	final double[] prob;
+
+	/**
+	 * One of {@link #LIVE}, {@link #WIN}, {@link #LOSE} or {@link #DRAW} for each
+	 * transition
+	 */
+	final byte[] kind;
+
+	/**
+	 * The reward of each transition, according to its {@link #kind}
+	 */
+	final double[] reward;
+
+	/**
+	 * The predecessors of state s, i.e. the states with an action that can lead to
+	 * s, are predecessor[predecessorStart[s]..predecessorStart[s+1]-1]
+	 */
+	final int[] predecessorStart;
+	final int[] predecessor;
+
+	/**
+	 * All state ids ordered so that every state comes after all of its
+	 * successors: by decreasing number of pieces on the board, then by id.
+	 */
+	final int[] topologicalOrder;
+
+	final double winReward;
+	final double loseReward;
+	final double livingReward;
+	final double drawReward;
+
+	private static CompiledMDP shared;
+
+	private static CompiledMDP sharedSymmetric;
+
+	/**
+	 * Enumerates all transitions of {@code mdp} from every non terminal state in
+	 * {@code states}. All target states must be in {@code states}.
+	 * 
+	 * @param mdp
+	 * @param states
+	 */
+	public CompiledMDP(TTTMDP mdp, StateIndex states) {
+		this.states = states;
+		this.winReward = mdp.winReward;
+		this.loseReward = mdp.loseReward;
+		this.livingReward = mdp.livingReward;
+		this.drawReward = mdp.drawReward;
+
+		// first count, so that the arrays can be allocated once
+		int numActions = 0;
+		int numTransitions = 0;
+		for (int s = 0; s < states.size(); s++) {
+			Game g = states.game(s);
+			if (g.isTerminal())
+				continue;
+			for (Move m : g.getPossibleMoves()) {
+				numActions++;
+				numTransitions += mdp.generateTransitions(g, m).size();
+			}
+		}
+
+		actionStart = new int[states.size() + 1];
+		actionCell = new byte[numActions];
+		transitionStart = new int[numActions + 1];
+		successor = new int[numTransitions];
+		prob = new double[numTransitions];
+		kind = new byte[numTransitions];
+		reward = new double[numTransitions];
+
+		int a = 0;
+		int t = 0;
+		for (int s = 0; s < states.size(); s++) {
+			actionStart[s] = a;
+			Game g = states.game(s);
+			if (g.isTerminal())
+				continue;
+			for (Move m : g.getPossibleMoves()) {
+				actionCell[a] = (byte) (3 * m.x + m.y);
+				transitionStart[a] = t;
+				List<TransitionProb> transitions = mdp.generateTransitions(g, m);
+				for (TransitionProb tp : transitions) {
+					Game target = tp.outcome.sPrime;
+					successor[t] = states.id(target);
+					if (successor[t] == -1)
+						throw new IllegalArgumentException("Target state is not indexed: " + target);
+					prob[t] = tp.prob;
+					kind[t] = kindOf(target);
+					reward[t] = tp.outcome.localReward;
+					t++;
+				}
+				a++;
+			}
+		}
+		actionStart[states.size()] = a;
+		transitionStart[a] = t;
+
+		predecessorStart = new int[states.size() + 1];
+		predecessor = buildPredecessors(predecessorStart);
+		topologicalOrder = buildTopologicalOrder();
+	}
+
+	/**
+	 * A model with the structure of {@code base} and different rewards.
+	 */
+	private CompiledMDP(CompiledMDP base, double win, double lose, double live, double draw) {
+		this.states = base.states;
+		this.actionStart = base.actionStart;
+		this.actionCell = base.actionCell;
+		this.transitionStart = base.transitionStart;
+		this.successor = base.successor;
+		this.prob = base.prob;
+		this.kind = base.kind;
+		this.predecessorStart = base.predecessorStart;
+		this.predecessor = base.predecessor;
+		this.topologicalOrder = base.topologicalOrder;
+		this.winReward = win;
+		this.loseReward = lose;
+		this.livingReward = live;
+		this.drawReward = draw;
+
+		double[] byKind = new double[4];
+		byKind[LIVE] = live;
+		byKind[WIN] = win;
+		byKind[LOSE] = lose;
+		byKind[DRAW] = draw;
+		this.reward = new double[kind.length];
+		for (int t = 0; t < kind.length; t++)
+			reward[t] = byKind[kind[t]];
+	}
+
+	/**
+	 * @return the compiled model of {@code mdp} over {@link StateIndex#getInstance()}.
+	 *         The structure is built once and shared by all models returned.
+	 */
+	public static CompiledMDP compile(TTTMDP mdp) {
+		return compile(mdp, false);
+	}
+
+	/**
+	 * @return the compiled model of {@code mdp} over
+	 *         {@link StateIndex#getSymmetricInstance()} if {@code symmetric}, and
+	 *         over {@link StateIndex#getInstance()} otherwise. The structure of
+	 *         each is built once and shared by all models returned.
+	 */
+	public static CompiledMDP compile(TTTMDP mdp, boolean symmetric) {
+		CompiledMDP base;
+		synchronized (CompiledMDP.class) {
+			if (symmetric) {
+				if (sharedSymmetric == null)
+					sharedSymmetric = new CompiledMDP(new TTTMDP(), StateIndex.getSymmetricInstance());
+				base = sharedSymmetric;
+			} else {
+				if (shared == null)
+					shared = new CompiledMDP(new TTTMDP(), StateIndex.getInstance());
+				base = shared;
+			}
+		}
+		return base.withRewards(mdp.winReward, mdp.loseReward, mdp.livingReward, mdp.drawReward);
+	}
+
+	/**
+	 * @return a model with the same states and transitions and the given rewards.
+	 *         Only the reward array is rebuilt; this model is returned if the
+	 *         rewards are the same.
+	 */
+	public CompiledMDP withRewards(double win, double lose, double live, double draw) {
+		if (hasRewards(win, lose, live, draw))
+			return this;
+
+		return new CompiledMDP(this, win, lose, live, draw);
+	}
+
+	/**
+	 * @return true if the rewards baked into this model are the given ones
+	 */
+	public boolean hasRewards(double win, double lose, double live, double draw) {
+		return Double.compare(win, winReward) == 0 && Double.compare(lose, loseReward) == 0
+				&& Double.compare(live, livingReward) == 0 && Double.compare(draw, drawReward) == 0;
+	}
+
+	/**
+	 * Inverts the transitions into predecessor lists, each one without duplicates
+	 * and in increasing order.
+	 * 
+	 * @param start filled with the start of each state's list
+	 * @return the lists
+	 */
+	private int[] buildPredecessors(int[] start) {
+		int n = states.size();
+		// an edge s->s' per distinct successor of s, counted and then placed
+		int[] lastSource = new int[n];
+		Arrays.fill(lastSource, -1);
+		int[] count = new int[n];
+		for (int s = 0; s < n; s++)
+			for (int t = transitionStart[actionStart[s]]; t < transitionStart[actionStart[s + 1]]; t++)
+				if (lastSource[successor[t]] != s) {
+					lastSource[successor[t]] = s;
+					count[successor[t]]++;
+				}
+
+		for (int s = 0; s < n; s++)
+			start[s + 1] = start[s] + count[s];
+
+		int[] lists = new int[start[n]];
+		int[] fill = Arrays.copyOf(start, n);
+		Arrays.fill(lastSource, -1);
+		for (int s = 0; s < n; s++)
+			for (int t = transitionStart[actionStart[s]]; t < transitionStart[actionStart[s + 1]]; t++)
+				if (lastSource[successor[t]] != s) {
+					lastSource[successor[t]] = s;
+					lists[fill[successor[t]]++] = s;
+				}
+		return lists;
+	}
+
+	/**
+	 * Every transition adds at least one piece to the board, so ordering states by
+	 * decreasing piece count puts successors before their predecessors.
+	 */
+	private int[] buildTopologicalOrder() {
+		int n = states.size();
+		int[] order = new int[n];
+		int i = 0;
+		for (int pieces = 9; pieces >= 0; pieces--)
+			for (int s = 0; s < n; s++)
+				if (Integer.bitCount(states.game(s).xMask | states.game(s).oMask) == pieces)
+					order[i++] = s;
+		return order;
+	}
+
+	static byte kindOf(Game target) {
+		switch (target.getState()) {
+		case Game.X_WON:
+			return WIN;
+		case Game.O_WON:
+			return LOSE;
+		case Game.DRAW:
+			return DRAW;
+		default:
+			return LIVE;
+		}
+	}
+
+	public StateIndex getStates() {
+		return states;
+	}
+
+	public int numStates() {
+		return states.size();
+	}
+
+	public int numActions() {
+		return actionCell.length;
+	}
+
+	public int numTransitions() {
+		return successor.length;
+	}
+
+	/**
+	 * @return true if state {@code s} has no actions, i.e. the game is over
+	 */
+	public boolean isTerminal(int s) {
+		return actionStart[s] == actionStart[s + 1];
+	}
+
+	public int firstAction(int s) {
+		return actionStart[s];
+	}
+
+	public int endAction(int s) {
+		return actionStart[s + 1];
+	}
+
+	/**
+	 * @return the cell (3*x+y) of X's move for action {@code a}
+	 */
+	public int cell(int a) {
+		return actionCell[a];
+	}
+
+	/**
+	 * @return the action of state {@code s} that plays in {@code cell}, or -1 if
+	 *         there is none
+	 */
+	public int action(int s, int cell) {
+		for (int a = actionStart[s]; a < actionStart[s + 1]; a++)
+			if (actionCell[a] == cell)
+				return a;
+		return -1;
+	}
+
+	public int firstTransition(int a) {
+		return transitionStart[a];
+	}
+
+	public int endTransition(int a) {
+		return transitionStart[a + 1];
+	}
+
+	/**
+	 * @return the id of the target state of transition {@code t}
+	 */
+	public int successor(int t) {
+		return successor[t];
+	}
+
+	public double prob(int t) {
+		return prob[t];
+	}
+
+	public double reward(int t) {
+		return reward[t];
+	}
+
+	public int firstPredecessor(int s) {
+		return predecessorStart[s];
+	}
+
+	public int endPredecessor(int s) {
+		return predecessorStart[s + 1];
+	}
+
+	/**
+	 * @return the i-th entry of the predecessor lists, see
+	 *         {@link #firstPredecessor(int)}
+	 */
+	public int predecessor(int i) {
+		return predecessor[i];
+	}
+
+	/**
+	 * @return the state id at position {@code i} of an order where every state
+	 *         comes after all of its successors. Backing up states in this order
+	 *         solves the MDP in a single pass.
+	 */
+	public int topological(int i) {
+		return topologicalOrder[i];
+	}
+
+	/**
+	 * @return the q-value of action {@code a}: sum over its transitions of
+	 *         T(s,a,s') * (R(s,a,s') + discount * V(s'))
+	 */
+	public double qValue(int a, double[] values, double discount) {
+		double sum = 0.0;
+		for (int t = transitionStart[a]; t < transitionStart[a + 1]; t++)
+			sum += prob[t] * (reward[t] + discount * values[successor[t]]);
+		return sum;
+	}
+
+}
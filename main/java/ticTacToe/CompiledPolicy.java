@@ -0,0 +1,44 @@
+package ticTacToe;
+
+/**
+ * A frozen copy of a {@link Policy} in a dense {@code byte[]}: the cell (3*x+y) of the move in each game, indexed by
+ * {@link Game#hashCode()}. A lookup is one array access, with no hashing, boxing or allocation: the moves returned 
+ * are the interned {@link Move}s, see {@link Move#of(Agent, int)}.
+ * 
+ * The moves are those the policy played when it was compiled, so compiling only makes sense for deterministic 
+ * policies, such as those of the trained agents (see {@link Agent#freezePolicy()}). Symmetric policies are compiled
+ * for every game, so lookups need no symmetry transform either.
+ *
+ */
+public class CompiledPolicy extends Policy {
+	
+	/**
+	 * The cell of the move in each game, indexed by {@link Game#hashCode()}, or {@link Policy#NO_MOVE}
+	 */
+	final byte[] moves;
+	
+	/**
+	 * Compiles {@code policy}: looks up its move in every valid game that isn't over.
+	 * @param policy
+	 */
+	public CompiledPolicy(Policy policy)
+	{
+		this.moves=policy.toCells();
+	}
+	
+	@Override
+	public Move getMove(Game g)
+	{
+		int cell=moves[g.hashCode()];
+		if (cell==NO_MOVE)
+			return null;
+		return Move.of(g.whoseTurn, cell);
+	}
+	
+	@Override
+	byte[] toCells()
+	{
+		return moves.clone();
+	}
+
+}
@@ -1,13 +1,13 @@
-package ticTacToe;
-
-/**
- * to do for next year
- * @author ae187
- *
- */
-public class EpsilonGreedyPolicy extends Policy {
-	
-	
-	
-
-}
+package ticTacToe;
+
+/**
+ * to do for next year
+ * @author ae187
+ *
+ */
+public class EpsilonGreedyPolicy extends Policy {
+	
+	
+	
+
+}
@@ -0,0 +1,227 @@
+package ticTacToe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A Q-Table stored in one flat {@code double[]}: the q-value of q-state (g,m)
+ * is at index {@code 9*id+cell}, where id is the id of g in a
+ * {@link StateIndex} and cell is the cell (3*x+y) of m. Reading or updating a
+ * q-value is an array access, with no hashing, boxing or allocation.
+ *
+ * Over a symmetric {@link StateIndex} (see
+ * {@link StateIndex#getSymmetricInstance()}) the cells are those of the
+ * canonical game, and the methods taking a {@link Game} map cells to and from
+ * that frame, so all 8 symmetric variants of a q-state share one value.
+ *
+ * All q-values start at 0. {@link #toQTable()} gives the old {@link QTable}
+ * view of the values.
+ *
+ * Several threads may update the table at once, without locks, through
+ * {@link #moveTowards(int, double, double)}, which never loses an update.
+ * Reads are plain and may see values that are being updated by other
+ * threads, which Q-learning tolerates.
+ *
+ */
+public class FlatQTable {
+
+	/**
+	 * The states, numbered densely
+	 */
+	final StateIndex states;
+
+	/**
+	 * The q-values, 9 per state and indexed by {@link #index(Game, int)}. Cells
+	 * that aren't legal moves in a state stay 0 and are never read by
+	 * {@link #max(Game)} or {@link #argmax(Game)}.
+	 */
+	final double[] values;
+
+	/**
+	 * Atomic access to the elements of {@link #values}
+	 */
+	private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(double[].class);
+
+	/**
+	 * A table over all valid games where it is X's turn, and all terminal games,
+	 * see {@link StateIndex#getInstance()}
+	 */
+	public FlatQTable() {
+		this(StateIndex.getInstance());
+	}
+
+	/**
+	 * @param states the states of the table. Every game looked up must be in it.
+	 */
+	public FlatQTable(StateIndex states) {
+		this.states = states;
+		this.values = new double[9 * states.size()];
+	}
+
+	/**
+	 * @return true if symmetric game states share their q-values
+	 */
+	public boolean isSymmetric() {
+		return states.isSymmetric();
+	}
+
+	/**
+	 * @return the states of this table
+	 */
+	public StateIndex getStates() {
+		return states;
+	}
+
+	/**
+	 * @param g
+	 * @param cell a cell (3*x+y) of {@code g}
+	 * @return the index of the q-value of playing {@code cell} in {@code g}, for
+	 *         {@link #get(int)} and {@link #set(int, double)}. It stays valid
+	 *         after {@code g} changes.
+	 */
+	public int index(Game g, int cell) {
+		if (states.isSymmetric())
+			cell = Symmetry.apply(g.canonicalTransform(), cell);
+		return 9 * states.id(g) + cell;
+	}
+
+	/**
+	 * @param index see {@link #index(Game, int)}
+	 * @return the q-value at {@code index}
+	 */
+	public double get(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Sets the q-value at {@code index}, see {@link #index(Game, int)}
+	 */
+	public void set(int index, double v) {
+		values[index] = v;
+	}
+
+	/**
+	 * Moves the q-value at {@code index} a fraction {@code rate} of the way
+	 * towards {@code target}, i.e. sets it to {@code (1-rate)*q+rate*target}.
+	 * This is a lock-free compare-and-set loop, so it is safe to call from
+	 * several threads at once.
+	 * 
+	 * @param index  see {@link #index(Game, int)}
+	 * @param target
+	 * @param rate   the learning rate, between 0 and 1
+	 */
+	public void moveTowards(int index, double target, double rate) {
+		double old, updated;
+		do {
+			old = (double) VALUES.getVolatile(values, index);
+			updated = (1 - rate) * old + rate * target;
+		} while (!VALUES.compareAndSet(values, index, old, updated));
+	}
+
+	/**
+	 * @return the q-value of the q-state {@code (g,m)}
+	 */
+	public double getQValue(Game g, Move m) {
+		return values[index(g, 3 * m.x + m.y)];
+	}
+
+	/**
+	 * Sets the q-value of the q-state {@code (g,m)} to {@code v}
+	 */
+	public void addQValue(Game g, Move m, double v) {
+		values[index(g, 3 * m.x + m.y)] = v;
+	}
+
+	/**
+	 * @param id    a state id
+	 * @param legal a mask of the cells to consider, in the frame of state
+	 *              {@code id}; at least one must be set
+	 * @return the largest q-value of the cells in {@code legal}
+	 */
+	public double max(int id, int legal) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int base = 9 * id; legal != 0; legal &= legal - 1) {
+			double v = values[base + Integer.numberOfTrailingZeros(legal)];
+			if (v > max)
+				max = v;
+		}
+		return max;
+	}
+
+	/**
+	 * @param id a state id, not a terminal one
+	 * @return the largest q-value of the legal moves in state {@code id}
+	 */
+	public double max(int id) {
+		return max(id, states.game(id).emptyMask());
+	}
+
+	/**
+	 * @param id    a state id
+	 * @param legal a mask of the cells to consider, in the frame of state
+	 *              {@code id}; at least one must be set
+	 * @return the cell in {@code legal} with the largest q-value, the last one
+	 *         on ties
+	 */
+	public int argmax(int id, int legal) {
+		double max = Double.NEGATIVE_INFINITY;
+		int best = -1;
+		for (int base = 9 * id; legal != 0; legal &= legal - 1) {
+			int cell = Integer.numberOfTrailingZeros(legal);
+			if (values[base + cell] >= max) {
+				max = values[base + cell];
+				best = cell;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param g a game that isn't terminal
+	 * @return the largest q-value of the legal moves in {@code g}
+	 */
+	public double max(Game g) {
+		int t = states.isSymmetric() ? g.canonicalTransform() : Symmetry.IDENTITY;
+		return max(states.id(g), Symmetry.MASK[t][g.emptyMask()]);
+	}
+
+	/**
+	 * @param g a game that isn't terminal
+	 * @return the cell (3*x+y) of the legal move in {@code g} with the largest
+	 *         q-value, see {@link #argmax(int, int)}
+	 */
+	public int argmax(Game g) {
+		int t = states.isSymmetric() ? g.canonicalTransform() : Symmetry.IDENTITY;
+		return Symmetry.invert(t, argmax(states.id(g), Symmetry.MASK[t][g.emptyMask()]));
+	}
+
+	/**
+	 * Sets all q-values to 0
+	 */
+	public void clear() {
+		Arrays.fill(values, 0.0);
+	}
+
+	/**
+	 * @return a {@link QTable} with the q-values of all legal moves in the
+	 *         non-terminal states of this table. It is a copy, so later updates
+	 *         aren't reflected in it.
+	 */
+	public QTable toQTable() {
+		QTable table = new QTable(states.isSymmetric());
+		for (int id = 0; id < states.size(); id++) {
+			Game g = states.game(id);
+			if (g.isTerminal())
+				continue;
+			table.put(g, new HashMap<Move, Double>());
+			for (int empty = g.emptyMask(); empty != 0; empty &= empty - 1) {
+				int cell = Integer.numberOfTrailingZeros(empty);
+				table.get(g).put(Move.of(g.whoseTurn, cell), values[9 * id + cell]);
+			}
+		}
+		return table;
+	}
+
+}
@@ -1,822 +1,1120 @@
-package ticTacToe;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
-
-/**
- * This is a class that defines the environment of a Tic Tac Toe Game: its
- * underlying state representation, actions transitions etc. It also provides
- * functionality for playing out a game between two agents, various other useful
- * methods.
- * 
- * 
- * 
- * 
- * @author ae187
- *
- */
-//Test commit 
-public class Game {
-
-	/**
-	 * Constants representing different game states
-	 * 
-	 */
-	public static final int DRAW = 3;
-	public static final int X_WON = 1;
-	public static final int O_WON = 2;
-	public static final int ONGOING = 0;
-
-	/**
-	 * this integer represents the state of the game, and is set by
-	 * {@link #evaluateGameState()} after every move DO NOT CONFUSE THIS with an MDP
-	 * state.
-	 */
-	int state = 0;
-
-	char[][] board = new char[3][3];
-
-	/**
-	 * the X agent
-	 */
-	Agent x;
-
-	/**
-	 * the O agent
-	 */
-	Agent o;
-
-	Agent whoseTurn;
-
-	/**
-	 * new game with new X and O agents with null policies
-	 */
-	public Game() {
-		this(new Agent(), new Agent());
-
-	}
-
-	/**
-	 * New game where x plays first
-	 * 
-	 * @param x
-	 * @param o
-	 */
-	public Game(Agent x, Agent o) {
-		this(x, o, x);
-	}
-
-	
-	/**
-	 * A new game where whoseTurn starts the game.
-	 * 
-	 * @param whoseTurn either 'X' or 'O'
-	 */
-	public Game(char whoseTurn) {
-		this(new Agent(), new Agent());
-		if (whoseTurn != 'X' && whoseTurn != 'O')
-			throw new IllegalArgumentException("Argument should be either 'X' or 'O'");
-		else if (whoseTurn == 'X')
-			this.whoseTurn = x;
-		else
-			this.whoseTurn = o;
-
-	}
-
-	/**
-	 * New game with X and O agents where it's whoseTurn's turn to play.
-	 * 
-	 * @param x
-	 * @param o
-	 * @param whoseTurn
-	 */
-	public Game(Agent x, Agent o, Agent whoseTurn) {
-		this.x = x;
-		x.setName('X');
-
-		this.o = o;
-		o.setName('O');
-		if (whoseTurn != x && whoseTurn != o)
-			throw new IllegalArgumentException("Agent with current turn is not one of the game agents");
-
-		this.whoseTurn = whoseTurn;
-
-		initBoard();
-
-	}
-
-	/**
-	 * To deep copy
-	 * 
-	 */
-	public Game(Game g) {
-		this.x = g.x;
-		this.o = g.o;
-		this.whoseTurn = g.whoseTurn;
-		// WARNING: Currently Agents are not deep copied
-
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++)
-				this.board[i][j] = g.board[i][j];
-
-	}
-
-	public void initBoard() {
-		// fill the board with e's (empty cells)
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++)
-				board[i][j] = ' ';
-
-	}
-
-	public boolean isLegal(Move m) {
-		if (m.x < 0 || m.x > 2 || m.y < 0 || m.y > 2)
-			return false;
-
-		if (m.who.getName() != whoseTurn.getName()) {
-			return false;
-		}
-
-		if (board[m.x][m.y] != ' ')
-			return false;
-
-		return true;
-	}
-
-	/**
-	 * 
-	 * @return All possible next game states from the current game state in one step
-	 *         where the agent whose turn it is moves.
-	 * 
-	 */
-	public List<Game> getAllSuccessorGames() {
-		List<Game> result = new ArrayList<Game>();
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++) {
-				if (board[i][j] == ' ') {
-					Game newGame = null;
-					try {
-						newGame = this.simulateMove(whoseTurn.getName(), i, j);
-					} catch (IllegalMoveException e) {
-						System.out.println(e.getMessage());
-						e.printStackTrace();
-					}
-					// System.out.println("Adding:\n"+newGame);
-					result.add(newGame);
-				}
-			}
-
-		return result;
-
-	}
-
-	/**
-	 * A static method to generate all valid game states where it is either X's turn
-	 * or O's turn as specified by {@code xo} argument. NOTE: this method will
-	 * include ALL terminal states in the game.
-	 * 
-	 * @param xo specifies whose turn it should be in the resulting games.
-	 * @return
-	 */
-	public static List<Game> generateAllValidGames(char xo) {
-		List<Game> result = new ArrayList<Game>();
-		// this is the number of possible game hashes (2222222222 in base 3): 59048 -
-		// not all are valid. Here we only return the valid ones.
-		for (int i = 0; i < 59048; i++) {
-			Game g = inverseHash(i);
-			if (g == null)
-				continue;
-
-			if (g.isValid()) {
-				// System.out.println("for:"+i);
-				// System.out.println("got:\n"+g);
-				// System.out.println("turn:"+g.whoseTurn.getName());
-				// System.out.println("--------");
-				g.evaluateGameState();
-				if (g.whoseTurn.getName() == xo || g.isTerminal())
-					result.add(g);
-			}
-
-		}
-
-		return result;
-	}
-
-	/**
-	 * returns a list of all available moves by the agent whose turn it is.
-	 * 
-	 * @return
-	 */
-	public List<Move> getPossibleMoves() {
-		List<Move> possibleMoves = new ArrayList<Move>();
-		// if it's not our turn then no moves possible.
-		if (getState() != ONGOING)
-			return possibleMoves;
-
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++) {
-				if (getBoard()[i][j] == ' ')
-					possibleMoves.add(new Move(whoseTurn, i, j));
-			}
-
-		return possibleMoves;
-
-	}
-
-	/**
-	 * returns a list of all available moves by the agent whose turn it is NOT. Used
-	 * by the defensive agent.
-	 * 
-	 * @return
-	 */
-	public List<Move> getPossibleMovesByOpponent() {
-		List<Move> possibleMoves = new ArrayList<Move>();
-		// if it's not our turn then no moves possible.
-		if (getState() != ONGOING)
-			return possibleMoves;
-
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++) {
-				if (getBoard()[i][j] == ' ')
-					possibleMoves.add(new Move((whoseTurn.getName() == 'X') ? 'O' : 'X', i, j));
-			}
-
-		return possibleMoves;
-
-	}
-
-	public char[][] getBoard() {
-		return board;
-	}
-
-	public String toString() {
-		String result = "\n";
-		for (int i = 0; i < 3; i++) {
-			result += "|";
-			for (int j = 0; j < 3; j++) {
-				result += board[i][j] + "|";
-
-			}
-			result += "\n";
-
-		}
-		// result+=this.whoseTurn+"'s turn";
-
-		return result;
-	}
-
-	/**
-	 * Evaluates the game, and sets its state to one of DRAW, ONGOING, X_WIN or
-	 * O_WIN
-	 * 
-	 * @return an integer representing the game state
-	 */
-	public int evaluateGameState() {
-
-		// checking columns
-		if (board[0][0] != ' ' && board[0][0] == board[0][1] && board[0][1] == board[0][2]) {
-			if (board[0][0] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-		if (board[1][0] != ' ' && board[1][0] == board[1][1] && board[1][1] == board[1][2]) {
-			if (board[1][0] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-		if (board[2][0] != ' ' && board[2][0] == board[2][1] && board[2][1] == board[2][2]) {
-			if (board[2][0] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-
-		// checking rows
-
-		if (board[0][0] != ' ' && board[0][0] == board[1][0] && board[1][0] == board[2][0]) {
-			if (board[0][0] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-		if (board[0][1] != ' ' && board[0][1] == board[1][1] && board[1][1] == board[2][1]) {
-			if (board[0][1] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-		if (board[0][2] != ' ' && board[0][2] == board[1][2] && board[1][2] == board[2][2]) {
-			if (board[0][2] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-
-		// checking diagnols
-
-		if (board[0][0] != ' ' && board[0][0] == board[1][1] && board[1][1] == board[2][2]) {
-			if (board[0][0] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-
-		if (board[2][0] != ' ' && board[2][0] == board[1][1] && board[1][1] == board[0][2]) {
-			if (board[2][0] == 'X')
-				this.state = X_WON;
-			else
-				this.state = O_WON;
-
-			return this.state;
-
-		}
-
-		boolean spacesLeft = false;
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++) {
-				if (board[i][j] == ' ') {
-					spacesLeft = true;
-					break;
-
-				}
-			}
-
-		if (spacesLeft)
-			this.state = ONGOING;
-		else
-			this.state = DRAW;
-
-		return this.state;
-
-	}
-
-	private int count(char xo) {
-		int count = 0;
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++)
-				if (board[i][j] == xo)
-					count++;
-		return count;
-	}
-
-	/**
-	 * Tells us if this game is a valid game.
-	 * 
-	 * @return
-	 */
-	public boolean isValid() {
-		int xs = count('X');
-		int os = count('O');
-		if (Math.abs(xs - os) > 1)
-			return false;
-
-		if (xs > os && this.whoseTurn.getName() == 'X')
-			return false;
-		else if (xs < os && this.whoseTurn.getName() == 'O')
-			return false;
-
-		return true;
-
-	}
-
-	/**
-	 * Executes move on the current game. Returns the resulting game without
-	 * changing the current one.
-	 * 
-	 * @param who the agent making move (X or O)
-	 * @param x   the x coordinate of the move (between 0 and 2 inclusive)
-	 * @param y   the y coordinate of the move
-	 * @return
-	 */
-	public Game simulateMove(char who, int x, int y) throws IllegalMoveException {
-		Move m = new Move(who, x, y);
-		return simulateMove(m);
-
-	}
-
-	/**
-	 * Executes the move m on the current game. Returns the resulting game without
-	 * changing the current one.
-	 * 
-	 * @param m
-	 * @return the Game after the move has been executed.
-	 */
-	public Game simulateMove(Move m) throws IllegalMoveException {
-		if (whoseTurn == x && m.who.getName() != 'X')
-			throw new IllegalMoveException("it is not x's turn");
-
-		if (whoseTurn == o && m.who.getName() != 'O')
-			throw new IllegalMoveException("it is not o's turn");
-
-		if (board[m.x][m.y] != ' ')
-			throw new IllegalMoveException("Invalid move. The square is " + m);
-
-		Game copy = clone();
-		copy.board[m.x][m.y] = m.who.getName();
-		if (m.who.getName() == 'X')
-			copy.whoseTurn = copy.o;
-		else if (m.who.getName() == 'O')
-			copy.whoseTurn = copy.x;
-		else
-			throw new IllegalArgumentException();
-
-		copy.evaluateGameState();
-
-		return copy;
-
-	}
-
-	/**
-	 * Executes the move m. This will change the game.
-	 * 
-	 * @param m
-	 */
-	public void executeMove(Move m) throws IllegalMoveException {
-		if (whoseTurn == x && m.who.getName() != 'X')
-			throw new IllegalMoveException("it is not O's turn");
-
-		if (whoseTurn == o && m.who.getName() != 'O')
-			throw new IllegalMoveException("it is not X's turn");
-
-		if (board[m.x][m.y] != ' ')
-			throw new IllegalMoveException("Invalid move. The location (" + m.x + "," + m.y + ") is not empty");
-
-		board[m.x][m.y] = m.who.getName();
-		if (whoseTurn.getName() == 'X')
-			whoseTurn = o;
-		else if (m.who.getName() == 'O')
-			whoseTurn = x;
-		else
-			throw new IllegalArgumentException();
-
-		this.evaluateGameState();
-
-	}
-
-	/**
-	 * Executes move on the current game. Returns the resulting game without
-	 * changing the current one.
-	 * 
-	 * @param who the agent making move (X or O)
-	 * @param x   the x coordinate of the move (between 0 and 2 inclusive)
-	 * @param y   the y coordinate of the move (between 0 and 2 inclusive)
-	 */
-	public void executeMove(char who, int x, int y) throws IllegalMoveException {
-		Move m = new Move(who, x, y);
-		executeMove(m);
-
-	}
-
-	/**
-	 * 
-	 * /** This method will play out the game to the end using moves from the X and
-	 * O agents. Use this method to test your agents
-	 * 
-	 * Each step is pretty printed.
-	 */
-	public void playOut() throws IllegalMoveException {
-
-		while (this.state == ONGOING) {
-
-			Move m = this.whoseTurn.getMove(this);
-			// if (!(this.whoseTurn instanceof ValueIterationAgent))
-			// {
-			// System.out.println("----successors----");
-			// for(Game g: this.getAllSuccessorGames())
-			// {
-			//
-			// ValueIterationAgent a=(ValueIterationAgent)this.x;
-			// System.out.println("Game:"+g);
-			// System.out.println("Game Value="+a.valueFunction.get(g));
-			// }
-			// System.out.println("---------");
-			// }
-
-			System.out.println("Playing move: " + m);
-			executeMove(m);
-			System.out.println(this);
-
-		}
-		if (this.state == X_WON) {
-			System.out.println("X won!");
-		} else if (this.state == O_WON) {
-			System.out.println("O won!");
-		} else
-			System.out.println("It's a draw.");
-
-	}
-
-	/**
-	 * Deep copy
-	 */
-	public Game clone() {
-		return new Game(this);
-	}
-
-	/**
-	 * A hashCode function implemented assuming the game board is a 10 digit number
-	 * in base three, where: ' ' maps to 0 'X' maps to 1 'O' maps to 2
-	 * 
-	 * 10 digits instead of 9 because we used the last, 10th one to encode whose
-	 * turn it is.
-	 * 
-	 * The returned value is essentially that number converted to base 10.
-	 * 
-	 * You can use this method to store (e.g. write to file) your value functions or
-	 * policies.
-	 * 
-	 * @return an integer representation of the game
-	 */
-	public int hashCode() {
-		// ' ' ->0
-		// 'X' ->1
-		// 'O' ->2
-		String s = "";
-		for (int i = 0; i < 3; i++)
-			for (int j = 0; j < 3; j++) {
-				switch (board[i][j]) {
-				case 'X':
-					s += "1";
-					break;
-				case 'O':
-					s += "2";
-					break;
-				case ' ':
-					s += "0";
-					break;
-				}
-
-			}
-		// also encode whose turn it is. Either 1 or 2 (x or o)
-
-		s += (whoseTurn == x) ? "1" : "2";
-
-		return Integer.parseInt(s, 3);
-
-	}
-
-	/**
-	 * Given a hash value for a game according to {@link Game#hashCode} this method
-	 * turns it back into a Game object, i.e. it is the inverse of the hashCode
-	 * method.
-	 * 
-	 * You can use this method to read your policy or value functions from file.
-	 * 
-	 * @param hash
-	 * @return the Game corresponding to the hash
-	 */
-	public static Game inverseHash(int hash) {
-
-		Game g = new Game();
-
-		String s1 = Integer.toString(hash, 3);
-
-		if (s1.charAt(s1.length() - 1) == '0')
-			return null;
-
-		// add leading 0's
-		String s = new String(s1);
-
-		for (int i = 0; i < 10 - s1.length(); i++) {
-			s = "0" + s;
-		}
-		// System.out.println("Intermediate string:"+s);
-		// set whose turn
-		if (s.charAt(s.length() - 1) == '1')
-			g.whoseTurn = g.x;
-		else if (s.charAt(s.length() - 1) == '2')
-			g.whoseTurn = g.o;
-
-		for (int l = s.length() - 2; l >= 0; l--) {
-			int i = (int) l / 3;
-			int j = (int) l % 3;
-			switch (s.charAt(l)) {
-			case '0':
-				g.board[i][j] = ' ';
-				break;
-			case '1':
-				g.board[i][j] = 'X';
-				break;
-			case '2':
-				g.board[i][j] = 'O';
-				break;
-			default:
-				throw new IllegalStateException("this shouldn't happen!");
-
-			}
-		}
-
-		return g;
-	}
-
-	public boolean equals(Object other) {
-		if (other == null)
-			return false;
-		else if (!(other instanceof Game))
-			return false;
-
-		return this.hashCode() == other.hashCode();
-	}
-
-	public int getState() {
-		return this.state;
-	}
-
-	public boolean isTerminal() {
-
-		return this.state != ONGOING;
-	}
-
-	public static final String help = " -h this menu" + "\n -x the X agent: -x <pi, vi, random, agg, def, human>"
-			+ "\n -o the O agent: -o <random, agg, def, human>"
-			+ "\n -s the agent that starts the game (x or o): -s <x or o>";
-
-	// public static void main(String args[]) throws IllegalMoveException
-	// {
-
-	// Game g=new Game();
-	// TTTMDP mdp=new TTTMDP();
-	//
-	// g.executeMove('X', 0, 0);
-	// g.executeMove('O', 1, 0);
-	// g.executeMove('X', 0, 2);
-	// g.executeMove('O', 1, 1);
-	//
-	// List<TransitionProb> transitions=mdp.generateTransitions(g, new Move('X', 0,
-	// 1));
-	// for(TransitionProb t:transitions)
-	// {
-	// System.out.println(t);
-	// }
-
-	// DEBUG valid games----
-	// List<Game> games=generateAllValidGames('X');
-	// for(Game g: games)
-	// {
-	// System.out.println(g);
-	// System.out.println(g.whoseTurn.getName());
-	// System.out.println("=============");
-	// }
-	// System.out.println("there were:"+games.size());
-	// }
-
-	/**
-	 * 
-	 * @param a
-	 * @throws IllegalMoveException of the there is an illegal move by one of the
-	 *                              agents. This would just exit the programme.
-	 */
-	public static void main(String a[]) throws IllegalMoveException {
-		List<String> args = Arrays.asList(a);
-		if (args.contains("-h")) {
-			System.out.println(help);
-			return;
-		}
-
-		Agent x = null;
-		Agent o = null;
-		String whoseTurn = null;
-		Iterator<String> iter = args.iterator();
-
-		while (iter.hasNext()) {
-			String cur = iter.next();
-			String next = null;
-			switch (cur) {
-			case "-x":
-				next = iter.next();
-				if (next == null || next.startsWith("-")) {
-					System.out.println("-x should be followed by the agent name, vi, pi, random, agg, def, or human");
-					return;
-				}
-				if (next.equals("vi")) {
-					System.out.println("x is vi agent.");
-					x = new ValueIterationAgent();
-				} else if (next.equals("pi")) {
-					System.out.println("X is pi agent.");
-					x = new PolicyIterationAgent();
-				} else if (next.equals("random")) {
-					System.out.println("X is random agent.");
-					x = new RandomAgent();
-				} else if (next.equals("human")) {
-					System.out.println("X is human agent.");
-					x = new HumanAgent();
-				} else if (next.equals("agg")) {
-
-					System.out.println("X is aggressive agent.");
-					x = new AggressiveAgent();
-				} else if (next.equals("def")) {
-					System.out.println("X is defensive agent.");
-					x = new DefensiveAgent();
-				} else if (next.equals("ql")) {
-					System.out.println("X is q learning agent.");
-					x = new QLearningAgent();
-				} else {
-					System.out.println("-x should be followed by the agent type: vi, pi, ql, random or human");
-					return;
-
-				}
-				break;
-			case "-o":
-				next = iter.next();
-
-				if (next == null || next.startsWith("-")) {
-					System.out.println("-o should be followed by the agent name e.g. random or human");
-					return;
-				}
-				if (next.equals("vi")) {
-					System.out.println("Error: the value iteration agent should be the X agent");
-					return;
-				}
-
-				else if (next.equals("pi")) {
-					System.out.println("Error: the policy iteration agent should be the X agent");
-					return;
-				} else if (next.equals("random"))
-					o = new RandomAgent();
-				else if (next.equals("human")) {
-					System.out.println("O is human agent");
-					o = new HumanAgent();
-				} else if (next.equals("agg")) {
-
-					System.out.println("O is aggressive agent.");
-					o = new AggressiveAgent();
-				} else if (next.equals("def")) {
-					System.out.println("O is defensive agent.");
-					o = new DefensiveAgent();
-				} else if (next.equals("ql")) {
-					System.out.println("O is q learning agent.");
-					o = new QLearningAgent();
-				} else {
-					System.out.println("Error: -x should be followed by the agent type: vi, pi, random or human");
-					return;
-
-				}
-				break;
-			case "-s":
-				next = iter.next();
-				if (next == null) {
-					System.out.println("Error: -s should be followed by the agent that starts the game: X or O");
-					return;
-				} else if (next.equalsIgnoreCase("x"))
-					whoseTurn = "x";
-				else if (next.equalsIgnoreCase("o"))
-					whoseTurn = "o";
-				else {
-					System.out.println("Error: -s should be followed by the agent that starts first: x or o");
-					return;
-				}
-				break;
-
-			}
-
-		}
-
-		if (x == null && o == null) {
-			x = new HumanAgent();
-			o = new RandomAgent();
-			System.out.println("X is human agent.");
-			System.out.println("O is random agent.");
-		} else if (x == null) {
-			System.out.println("X is random agent");
-			x = new RandomAgent();
-		} else if (o == null) {
-			System.out.println("O is random agent.");
-			o = new RandomAgent();
-		}
-
-		Game g;
-		if (whoseTurn == null || whoseTurn.equals("x"))
-			g = new Game(x, o);
-		else
-			g = new Game(x, o, o);
-
-		g.playOut();
-
-	}
-
-}
+package ticTacToe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * This is a class that defines the environment of a Tic Tac Toe Game: its
+ * underlying state representation, actions transitions etc. It also provides
+ * functionality for playing out a game between two agents, various other useful
+ * methods.
+ * 
+ * 
+ * 
+ * 
+ * @author ae187
+ *
+ */
+//Test commit 
+public class Game {
+
+	/**
+	 * Constants representing different game states
+	 * 
+	 */
+	public static final int DRAW = 3;
+	public static final int X_WON = 1;
+	public static final int O_WON = 2;
+	public static final int ONGOING = 0;
+
+	/**
+	 * this integer represents the state of the game, and is set by
+	 * {@link #evaluateGameState()} after every move DO NOT CONFUSE THIS with an MDP
+	 * state.
+	 */
+	int state = 0;
+
+	/**
+	 * True if the board may have changed since {@link #state} was last
+	 * evaluated, as after {@link #inverseHash(int)} or {@link #setCell(int, int, char)}.
+	 * {@link #makeMove(int)} then evaluates the whole board instead of only the
+	 * lines through its move.
+	 */
+	boolean stale = false;
+
+	/**
+	 * The board is kept as two 9-bit masks, one for the cells occupied by X and
+	 * one for the cells occupied by O. Cell (i,j) is bit {@code 3*i+j}, so the
+	 * cells are numbered 0..8 in the same row-major order used by
+	 * {@link #hashCode()} and by {@link HumanAgent}.
+	 */
+	int xMask = 0;
+	int oMask = 0;
+
+	/**
+	 * All 9 cells set.
+	 */
+	static final int FULL_BOARD = 0x1FF;
+
+	/**
+	 * The eight winning lines as masks, in the order they used to be checked by
+	 * {@link #evaluateGameState()}: the three i-lines, the three j-lines and the
+	 * two diagonals.
+	 */
+	static final int[] WIN_LINES = { 0x007, 0x038, 0x1C0, 0x049, 0x092, 0x124, 0x111, 0x054 };
+
+	/**
+	 * For every possible 9-bit mask, the index in {@link #WIN_LINES} of the first
+	 * line completely covered by it, or {@code WIN_LINES.length} if there is none.
+	 */
+	static final byte[] FIRST_LINE = new byte[FULL_BOARD + 1];
+
+	static {
+		for (int mask = 0; mask <= FULL_BOARD; mask++) {
+			int first = WIN_LINES.length;
+			for (int l = WIN_LINES.length - 1; l >= 0; l--)
+				if ((mask & WIN_LINES[l]) == WIN_LINES[l])
+					first = l;
+			FIRST_LINE[mask] = (byte) first;
+		}
+	}
+
+	/**
+	 * LINES_THROUGH[c] holds the {@link #WIN_LINES} that contain cell c, so a move
+	 * only needs to check these.
+	 */
+	static final int[][] LINES_THROUGH = new int[9][];
+
+	static {
+		for (int cell = 0; cell < 9; cell++) {
+			int n = 0;
+			for (int line : WIN_LINES)
+				if ((line & (1 << cell)) != 0)
+					n++;
+			LINES_THROUGH[cell] = new int[n];
+			n = 0;
+			for (int line : WIN_LINES)
+				if ((line & (1 << cell)) != 0)
+					LINES_THROUGH[cell][n++] = line;
+		}
+	}
+
+	/**
+	 * The number of possible hash codes, 3^10. See {@link #hashCode()}.
+	 */
+	public static final int NUM_HASHES = 59049;
+
+	/**
+	 * The base-3 weight of each cell in {@link #hashCode()}: cell 0 is the most
+	 * significant digit and the last (10th) digit encodes whose turn it is.
+	 */
+	static final int[] CELL_WEIGHT = { 19683, 6561, 2187, 729, 243, 81, 27, 9, 3 };
+
+	/**
+	 * The contribution of every possible {@link #xMask} and {@link #oMask} to
+	 * {@link #hashCode()}.
+	 */
+	static final int[] X_CODE = new int[FULL_BOARD + 1];
+	static final int[] O_CODE = new int[FULL_BOARD + 1];
+
+	static {
+		for (int mask = 0; mask <= FULL_BOARD; mask++)
+			for (int cell = 0; cell < 9; cell++)
+				if ((mask & (1 << cell)) != 0) {
+					X_CODE[mask] += CELL_WEIGHT[cell];
+					O_CODE[mask] += 2 * CELL_WEIGHT[cell];
+				}
+	}
+
+	/**
+	 * The interned moves of X and of O in the cells of every mask, as shared
+	 * unmodifiable lists in cell order, indexed by mask. They are what
+	 * {@link #getPossibleMoves()} and {@link #getPossibleMovesByOpponent()} return.
+	 */
+	private static final List<List<Move>> X_MOVE_LISTS = moveLists('X');
+	private static final List<List<Move>> O_MOVE_LISTS = moveLists('O');
+
+	private static List<List<Move>> moveLists(char who) {
+		List<List<Move>> lists = new ArrayList<List<Move>>(FULL_BOARD + 1);
+		for (int mask = 0; mask <= FULL_BOARD; mask++) {
+			Move[] moves = new Move[Integer.bitCount(mask)];
+			int i = 0;
+			for (int cells = mask; cells != 0; cells &= cells - 1)
+				moves[i++] = Move.of(who, Integer.numberOfTrailingZeros(cells));
+			lists.add(List.of(moves));
+		}
+		return List.copyOf(lists);
+	}
+
+	/**
+	 * The cached value of {@link #hashCode()}. Every method that changes the board
+	 * or whose turn it is keeps it up to date, either incrementally or through
+	 * {@link #rehash()}.
+	 */
+	int hash;
+
+	/**
+	 * The number of pieces on the board, kept up to date like {@link #hash}.
+	 */
+	int moveCount;
+
+	/**
+	 * the X agent
+	 */
+	Agent x;
+
+	/**
+	 * the O agent
+	 */
+	Agent o;
+
+	Agent whoseTurn;
+
+	/**
+	 * new game with new X and O agents with null policies
+	 */
+	public Game() {
+		this(new Agent(), new Agent());
+
+	}
+
+	/**
+	 * New game where x plays first
+	 * 
+	 * @param x
+	 * @param o
+	 */
+	public Game(Agent x, Agent o) {
+		this(x, o, x);
+	}
+
+	
+	/**
+	 * A new game where whoseTurn starts the game.
+	 * 
+	 * @param whoseTurn either 'X' or 'O'
+	 */
+	public Game(char whoseTurn) {
+		this(new Agent(), new Agent());
+		if (whoseTurn != 'X' && whoseTurn != 'O')
+			throw new IllegalArgumentException("Argument should be either 'X' or 'O'");
+		else if (whoseTurn == 'X')
+			this.whoseTurn = x;
+		else
+			this.whoseTurn = o;
+
+		rehash();
+
+	}
+
+	/**
+	 * New game with X and O agents where it's whoseTurn's turn to play.
+	 * 
+	 * @param x
+	 * @param o
+	 * @param whoseTurn
+	 */
+	public Game(Agent x, Agent o, Agent whoseTurn) {
+		this.x = x;
+		x.setName('X');
+
+		this.o = o;
+		o.setName('O');
+		if (whoseTurn != x && whoseTurn != o)
+			throw new IllegalArgumentException("Agent with current turn is not one of the game agents");
+
+		this.whoseTurn = whoseTurn;
+
+		initBoard();
+
+	}
+
+	/**
+	 * To deep copy
+	 * 
+	 */
+	public Game(Game g) {
+		this.x = g.x;
+		this.o = g.o;
+		this.whoseTurn = g.whoseTurn;
+		// WARNING: Currently Agents are not deep copied
+
+		this.xMask = g.xMask;
+		this.oMask = g.oMask;
+		this.hash = g.hash;
+		this.moveCount = g.moveCount;
+		// the state isn't copied, so it is only right if the original's was ONGOING
+		this.stale = g.stale || g.state != ONGOING;
+
+	}
+
+	/**
+	 * The game after the agent whose turn it is in {@code parent} plays in the
+	 * empty {@code cell}: the same as a copy of {@code parent} (with its state)
+	 * followed by {@link #makeMove(int)}, but built directly from the masks and
+	 * the hash of {@code parent}.
+	 */
+	private Game(Game parent, int cell) {
+		this.x = parent.x;
+		this.o = parent.o;
+		int b = 1 << cell;
+		int mover;
+		if (parent.whoseTurn == x) {
+			xMask = mover = parent.xMask | b;
+			oMask = parent.oMask;
+			whoseTurn = o;
+			hash = parent.hash + moveCode('X', cell);
+		} else {
+			xMask = parent.xMask;
+			oMask = mover = parent.oMask | b;
+			whoseTurn = x;
+			hash = parent.hash + moveCode('O', cell);
+		}
+		moveCount = parent.moveCount + 1;
+
+		// with the parent ongoing and up to date, any line of the mover's is new
+		if (parent.state != ONGOING || parent.stale)
+			evaluateGameState();
+		else if (hasLine(mover))
+			state = whoseTurn == o ? X_WON : O_WON;
+		else if (moveCount == 9)
+			state = DRAW;
+	}
+
+	public void initBoard() {
+		// empty all cells
+		xMask = 0;
+		oMask = 0;
+		rehash();
+
+	}
+
+	/**
+	 * Recomputes the cached {@link #hash} and {@link #moveCount} from the board
+	 * and whose turn it is.
+	 */
+	void rehash() {
+		hash = X_CODE[xMask] + O_CODE[oMask] + (whoseTurn == x ? 1 : 2);
+		moveCount = Integer.bitCount(xMask | oMask);
+	}
+
+	/**
+	 * @return how much {@link #hash} changes when {@code who} plays in
+	 *         {@code cell} and the turn passes to the other agent
+	 */
+	static int moveCode(char who, int cell) {
+		// the turn digit goes from 1 to 2 after X's move, and from 2 to 1 after O's
+		return who == 'X' ? CELL_WEIGHT[cell] + 1 : 2 * CELL_WEIGHT[cell] - 1;
+	}
+
+	/**
+	 * @return the bit of cell (x,y) in {@link #xMask} and {@link #oMask}
+	 */
+	static int bit(int x, int y) {
+		return 1 << (3 * x + y);
+	}
+
+	/**
+	 * @return true if {@code mask} covers at least one of the {@link #WIN_LINES}
+	 */
+	static boolean hasLine(int mask) {
+		return FIRST_LINE[mask] != WIN_LINES.length;
+	}
+
+	/**
+	 * @return a mask of the empty cells
+	 */
+	int emptyMask() {
+		return ~(xMask | oMask) & FULL_BOARD;
+	}
+
+	/**
+	 * @return 'X', 'O' or ' ' depending on what occupies cell (x,y)
+	 */
+	char getCell(int x, int y) {
+		int b = bit(x, y);
+		if ((xMask & b) != 0)
+			return 'X';
+		if ((oMask & b) != 0)
+			return 'O';
+		return ' ';
+	}
+
+	/**
+	 * Places {@code who} in cell (x,y) without any checks, and without changing
+	 * whose turn it is or re-evaluating the game.
+	 */
+	void setCell(int x, int y, char who) {
+		int b = bit(x, y);
+		xMask &= ~b;
+		oMask &= ~b;
+		if (who == 'X')
+			xMask |= b;
+		else if (who == 'O')
+			oMask |= b;
+		rehash();
+		stale = true;
+	}
+
+	/**
+	 * @return true if {@code mask} with {@code cell} added covers one of the
+	 *         {@link #WIN_LINES} through {@code cell}
+	 */
+	static boolean completesLine(int mask, int cell) {
+		mask |= 1 << cell;
+		for (int line : LINES_THROUGH[cell])
+			if ((mask & line) == line)
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return true if {@code who} ('X' or 'O') would complete a line by playing in
+	 *         the empty {@code cell} (3*x+y). The game is not changed.
+	 */
+	public boolean isWinningMove(char who, int cell) {
+		return completesLine(who == 'X' ? xMask : oMask, cell);
+	}
+
+	/**
+	 * Plays the agent whose turn it is in the empty {@code cell} (3*x+y), in place
+	 * and without allocating: the board, {@link #hash}, {@link #moveCount}, whose
+	 * turn it is and the state are all updated incrementally. Only the lines
+	 * through {@code cell} are checked for a win, which relies on the state being
+	 * up to date, as it is after {@link #evaluateGameState()} or any move; after
+	 * a move in a finished game, or one whose state may be {@link #stale}, the
+	 * whole board is evaluated instead.
+	 * 
+	 * Nothing is checked, so use {@link #executeMove(Move)} for moves that may be
+	 * illegal. {@link #undoMove(int)} takes the move back.
+	 * 
+	 * @param cell
+	 */
+	public void makeMove(int cell) {
+		int b = 1 << cell;
+		boolean won;
+		if (whoseTurn == x) {
+			won = completesLine(xMask, cell);
+			xMask |= b;
+			whoseTurn = o;
+			hash += moveCode('X', cell);
+		} else {
+			won = completesLine(oMask, cell);
+			oMask |= b;
+			whoseTurn = x;
+			hash += moveCode('O', cell);
+		}
+		moveCount++;
+
+		if (state != ONGOING || stale)
+			evaluateGameState();
+		else if (won)
+			state = whoseTurn == o ? X_WON : O_WON;
+		else if (moveCount == 9)
+			state = DRAW;
+	}
+
+	/**
+	 * Takes back the move in {@code cell} made by {@link #makeMove(int)}: the cell
+	 * is emptied and it is again the turn of whoever occupied it. The state is
+	 * re-evaluated from the lookup tables, as the move may have been made in a
+	 * finished game.
+	 * 
+	 * @param cell the cell of the last move
+	 */
+	public void undoMove(int cell) {
+		int b = 1 << cell;
+		if ((xMask & b) != 0) {
+			xMask &= ~b;
+			whoseTurn = x;
+			hash -= moveCode('X', cell);
+		} else {
+			oMask &= ~b;
+			whoseTurn = o;
+			hash -= moveCode('O', cell);
+		}
+		moveCount--;
+
+		evaluateGameState();
+	}
+
+	/**
+	 * @return the number of pieces on the board
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	public boolean isLegal(Move m) {
+		if (m.x < 0 || m.x > 2 || m.y < 0 || m.y > 2)
+			return false;
+
+		if (m.who.getName() != whoseTurn.getName()) {
+			return false;
+		}
+
+		if (((xMask | oMask) & bit(m.x, m.y)) != 0)
+			return false;
+
+		return true;
+	}
+
+	/**
+	 * 
+	 * @return All possible next game states from the current game state in one step
+	 *         where the agent whose turn it is moves.
+	 * 
+	 */
+	public List<Game> getAllSuccessorGames() {
+		int empty = emptyMask();
+		List<Game> result = new ArrayList<Game>(Integer.bitCount(empty));
+		for (; empty != 0; empty &= empty - 1)
+			result.add(new Game(this, Integer.numberOfTrailingZeros(empty)));
+
+		return result;
+
+	}
+
+	/**
+	 * A static method to generate all valid game states where it is either X's turn
+	 * or O's turn as specified by {@code xo} argument. NOTE: this method will
+	 * include ALL terminal states in the game.
+	 * 
+	 * @param xo specifies whose turn it should be in the resulting games.
+	 * @return
+	 */
+	public static List<Game> generateAllValidGames(char xo) {
+		List<Game> result = new ArrayList<Game>();
+		// this is the number of possible game hashes (2222222222 in base 3): 59048 -
+		// not all are valid. Here we only return the valid ones.
+		for (int i = 0; i < NUM_HASHES - 1; i++) {
+			Game g = inverseHash(i);
+			if (g == null)
+				continue;
+
+			if (g.isValid()) {
+				// System.out.println("for:"+i);
+				// System.out.println("got:\n"+g);
+				// System.out.println("turn:"+g.whoseTurn.getName());
+				// System.out.println("--------");
+				g.evaluateGameState();
+				if (g.whoseTurn.getName() == xo || g.isTerminal())
+					result.add(g);
+			}
+
+		}
+
+		return result;
+	}
+
+	/**
+	 * returns a list of all available moves by the agent whose turn it is. The
+	 * list and its moves are shared and unmodifiable, so this allocates nothing.
+	 * 
+	 * @return
+	 */
+	public List<Move> getPossibleMoves() {
+		// if it's not our turn then no moves possible.
+		if (getState() != ONGOING)
+			return X_MOVE_LISTS.get(0);
+
+		return (whoseTurn.getName() == 'O' ? O_MOVE_LISTS : X_MOVE_LISTS).get(emptyMask());
+
+	}
+
+	/**
+	 * returns a list of all available moves by the agent whose turn it is NOT. Used
+	 * by the defensive agent. Like {@link #getPossibleMoves()}, the list is shared
+	 * and unmodifiable.
+	 * 
+	 * @return
+	 */
+	public List<Move> getPossibleMovesByOpponent() {
+		// if it's not our turn then no moves possible.
+		if (getState() != ONGOING)
+			return X_MOVE_LISTS.get(0);
+
+		return (whoseTurn.getName() == 'X' ? O_MOVE_LISTS : X_MOVE_LISTS).get(emptyMask());
+
+	}
+
+	/**
+	 * @return a mask of the cells of the legal moves of the agent whose turn it
+	 *         is, bit 3*x+y for cell (x,y), or 0 if the game is over
+	 */
+	public int getLegalMoveMask() {
+		return getState() == ONGOING ? emptyMask() : 0;
+	}
+
+	/**
+	 * Calls {@code action} with the cell (3*x+y) of every legal move of the agent
+	 * whose turn it is, in increasing order, without allocating anything.
+	 * 
+	 * @param action
+	 */
+	public void forEachMove(IntConsumer action) {
+		for (int legal = getLegalMoveMask(); legal != 0; legal &= legal - 1)
+			action.accept(Integer.numberOfTrailingZeros(legal));
+	}
+
+	/**
+	 * Writes the cells (3*x+y) of the legal moves of the agent whose turn it is
+	 * into {@code cells}, in increasing order, so that one buffer can be reused
+	 * for every game.
+	 * 
+	 * @param cells a buffer with room for at least 9 cells
+	 * @return the number of legal moves written
+	 */
+	public int getLegalMoves(int[] cells) {
+		int n = 0;
+		for (int legal = getLegalMoveMask(); legal != 0; legal &= legal - 1)
+			cells[n++] = Integer.numberOfTrailingZeros(legal);
+		return n;
+	}
+
+	/**
+	 * @return the {@code n}-th (from 0) cell of {@code mask}, in increasing order
+	 */
+	static int nthCell(int mask, int n) {
+		for (; n > 0; n--)
+			mask &= mask - 1;
+		return Integer.numberOfTrailingZeros(mask);
+	}
+
+	/**
+	 * @return a copy of the board as a 3x3 array of 'X', 'O' and ' '. Changing the
+	 *         returned array does not change the game.
+	 */
+	public char[][] getBoard() {
+		char[][] board = new char[3][3];
+		for (int i = 0; i < 3; i++)
+			for (int j = 0; j < 3; j++)
+				board[i][j] = getCell(i, j);
+		return board;
+	}
+
+	public String toString() {
+		String result = "\n";
+		for (int i = 0; i < 3; i++) {
+			result += "|";
+			for (int j = 0; j < 3; j++) {
+				result += getCell(i, j) + "|";
+
+			}
+			result += "\n";
+
+		}
+		// result+=this.whoseTurn+"'s turn";
+
+		return result;
+	}
+
+	/**
+	 * Evaluates the game, and sets its state to one of DRAW, ONGOING, X_WIN or
+	 * O_WIN
+	 * 
+	 * @return an integer representing the game state
+	 */
+	public int evaluateGameState() {
+
+		// the first completed line decides the winner, as if the lines were
+		// checked one by one in the order of WIN_LINES
+		int xLine = FIRST_LINE[xMask];
+		int oLine = FIRST_LINE[oMask];
+		if (xLine < oLine)
+			this.state = X_WON;
+		else if (oLine < xLine)
+			this.state = O_WON;
+		else if ((xMask | oMask) != FULL_BOARD)
+			this.state = ONGOING;
+		else
+			this.state = DRAW;
+		this.stale = false;
+
+		return this.state;
+
+	}
+
+	private int count(char xo) {
+		return Integer.bitCount(xo == 'X' ? xMask : oMask);
+	}
+
+	/**
+	 * Tells us if this game is a valid game.
+	 * 
+	 * @return
+	 */
+	public boolean isValid() {
+		int xs = count('X');
+		int os = count('O');
+		if (Math.abs(xs - os) > 1)
+			return false;
+
+		if (xs > os && this.whoseTurn.getName() == 'X')
+			return false;
+		else if (xs < os && this.whoseTurn.getName() == 'O')
+			return false;
+
+		return true;
+
+	}
+
+	/**
+	 * Executes move on the current game. Returns the resulting game without
+	 * changing the current one.
+	 * 
+	 * @param who the agent making move (X or O)
+	 * @param x   the x coordinate of the move (between 0 and 2 inclusive)
+	 * @param y   the y coordinate of the move
+	 * @return
+	 */
+	public Game simulateMove(char who, int x, int y) throws IllegalMoveException {
+		Move m = Move.of(who, x, y);
+		return simulateMove(m);
+
+	}
+
+	/**
+	 * Executes the move m on the current game. Returns the resulting game without
+	 * changing the current one.
+	 * 
+	 * @param m
+	 * @return the Game after the move has been executed.
+	 */
+	public Game simulateMove(Move m) throws IllegalMoveException {
+		if (whoseTurn == x && m.who.getName() != 'X')
+			throw new IllegalMoveException("it is not x's turn");
+
+		if (whoseTurn == o && m.who.getName() != 'O')
+			throw new IllegalMoveException("it is not o's turn");
+
+		int b = bit(m.x, m.y);
+		if (((xMask | oMask) & b) != 0)
+			throw new IllegalMoveException("Invalid move. The square is " + m);
+
+		return new Game(this, 3 * m.x + m.y);
+
+	}
+
+	/**
+	 * Executes the move m. This will change the game.
+	 * 
+	 * @param m
+	 */
+	public void executeMove(Move m) throws IllegalMoveException {
+		if (whoseTurn == x && m.who.getName() != 'X')
+			throw new IllegalMoveException("it is not O's turn");
+
+		if (whoseTurn == o && m.who.getName() != 'O')
+			throw new IllegalMoveException("it is not X's turn");
+
+		int b = bit(m.x, m.y);
+		if (((xMask | oMask) & b) != 0)
+			throw new IllegalMoveException("Invalid move. The location (" + m.x + "," + m.y + ") is not empty");
+
+		if (m.who.getName() == 'X')
+			xMask |= b;
+		else
+			oMask |= b;
+		if (whoseTurn.getName() == 'X')
+			whoseTurn = o;
+		else if (m.who.getName() == 'O')
+			whoseTurn = x;
+		else
+			throw new IllegalArgumentException();
+		hash += moveCode(m.who.getName(), 3 * m.x + m.y);
+		moveCount++;
+
+		this.evaluateGameState();
+
+	}
+
+	/**
+	 * Executes move on the current game. Returns the resulting game without
+	 * changing the current one.
+	 * 
+	 * @param who the agent making move (X or O)
+	 * @param x   the x coordinate of the move (between 0 and 2 inclusive)
+	 * @param y   the y coordinate of the move (between 0 and 2 inclusive)
+	 */
+	public void executeMove(char who, int x, int y) throws IllegalMoveException {
+		Move m = Move.of(who, x, y);
+		executeMove(m);
+
+	}
+
+	/**
+	 * 
+	 * /** This method will play out the game to the end using moves from the X and
+	 * O agents. Use this method to test your agents
+	 * 
+	 * Each step is pretty printed.
+	 */
+	public void playOut() throws IllegalMoveException {
+		playOut(true);
+	}
+
+	/**
+	 * Plays out the game to the end using moves from the X and O agents, like
+	 * {@link #playOut()}, but only prints the moves, the boards and the result if
+	 * {@code verbose}. {@link Tournament} plays its games silently.
+	 * 
+	 * @param verbose
+	 * @return the final state, X_WON, O_WON or DRAW
+	 */
+	public int playOut(boolean verbose) throws IllegalMoveException {
+
+		while (this.state == ONGOING) {
+
+			Move m = this.whoseTurn.getMove(this);
+			// if (!(this.whoseTurn instanceof ValueIterationAgent))
+			// {
+			// System.out.println("----successors----");
+			// for(Game g: this.getAllSuccessorGames())
+			// {
+			//
+			// ValueIterationAgent a=(ValueIterationAgent)this.x;
+			// System.out.println("Game:"+g);
+			// System.out.println("Game Value="+a.valueFunction.get(g));
+			// }
+			// System.out.println("---------");
+			// }
+
+			if (verbose)
+				System.out.println("Playing move: " + m);
+			executeMove(m);
+			if (verbose)
+				System.out.println(this);
+
+		}
+		if (!verbose)
+			return this.state;
+
+		if (this.state == X_WON) {
+			System.out.println("X won!");
+		} else if (this.state == O_WON) {
+			System.out.println("O won!");
+		} else
+			System.out.println("It's a draw.");
+
+		return this.state;
+	}
+
+	/**
+	 * Deep copy
+	 */
+	public Game clone() {
+		return new Game(this);
+	}
+
+	/**
+	 * A hashCode function implemented assuming the game board is a 10 digit number
+	 * in base three, where: ' ' maps to 0 'X' maps to 1 'O' maps to 2
+	 * 
+	 * 10 digits instead of 9 because we used the last, 10th one to encode whose
+	 * turn it is.
+	 * 
+	 * The returned value is essentially that number converted to base 10.
+	 * 
+	 * You can use this method to store (e.g. write to file) your value functions or
+	 * policies.
+	 * 
+	 * @return an integer representation of the game
+	 */
+	public int hashCode() {
+		// ' ' ->0
+		// 'X' ->1
+		// 'O' ->2
+		// the value is kept up to date in hash as the game changes, see rehash()
+		return hash;
+
+	}
+
+	/**
+	 * Given a hash value for a game according to {@link Game#hashCode} this method
+	 * turns it back into a Game object, i.e. it is the inverse of the hashCode
+	 * method.
+	 * 
+	 * You can use this method to read your policy or value functions from file.
+	 * 
+	 * @param hash
+	 * @return the Game corresponding to the hash, or null if the hash doesn't
+	 *         encode whose turn it is
+	 */
+	public static Game inverseHash(int hash) {
+		if (hash < 0 || hash >= NUM_HASHES)
+			throw new IllegalArgumentException("Not a game hash: " + hash);
+
+		// the last digit is whose turn it is
+		int turn = hash % 3;
+		if (turn == 0)
+			return null;
+
+		Game g = new Game();
+		if (turn == 1)
+			g.whoseTurn = g.x;
+		else
+			g.whoseTurn = g.o;
+
+		int rest = hash / 3;
+		for (int cell = 8; cell >= 0; cell--) {
+			int digit = rest % 3;
+			rest /= 3;
+			if (digit == 1)
+				g.xMask |= 1 << cell;
+			else if (digit == 2)
+				g.oMask |= 1 << cell;
+		}
+		g.hash = hash;
+		g.moveCount = Integer.bitCount(g.xMask | g.oMask);
+		// the state is left ONGOING until evaluateGameState() is called
+		g.stale = true;
+
+		return g;
+	}
+
+	/**
+	 * @return the {@link Symmetry} that maps this game to its canonical form: the
+	 *         symmetric variant with the smallest {@link #hashCode()}. On ties
+	 *         the lowest numbered symmetry is returned.
+	 */
+	public int canonicalTransform() {
+		int best = Symmetry.IDENTITY;
+		int bestCode = X_CODE[xMask] + O_CODE[oMask];
+		for (int t = 1; t < Symmetry.COUNT; t++) {
+			int code = X_CODE[Symmetry.MASK[t][xMask]] + O_CODE[Symmetry.MASK[t][oMask]];
+			if (code < bestCode) {
+				bestCode = code;
+				best = t;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the {@link #hashCode()} of the canonical form of this game, the same
+	 *         for all 8 symmetric variants of it
+	 */
+	public int canonicalHash() {
+		int t = canonicalTransform();
+		return X_CODE[Symmetry.MASK[t][xMask]] + O_CODE[Symmetry.MASK[t][oMask]] + (whoseTurn == x ? 1 : 2);
+	}
+
+	/**
+	 * @return a copy of this game with the board transformed by symmetry
+	 *         {@code t}
+	 */
+	public Game transform(int t) {
+		Game copy = clone();
+		copy.xMask = Symmetry.MASK[t][xMask];
+		copy.oMask = Symmetry.MASK[t][oMask];
+		copy.rehash();
+		copy.state = this.state;
+		copy.stale = this.stale;
+		return copy;
+	}
+
+	/**
+	 * @return a copy of the canonical form of this game, see
+	 *         {@link #canonicalTransform()}
+	 */
+	public Game canonical() {
+		return transform(canonicalTransform());
+	}
+
+	/**
+	 * @return true if this game is its own canonical form
+	 */
+	public boolean isCanonical() {
+		return canonicalHash() == hash;
+	}
+
+	public boolean equals(Object other) {
+		if (other == null)
+			return false;
+		else if (!(other instanceof Game))
+			return false;
+
+		return this.hashCode() == other.hashCode();
+	}
+
+	public int getState() {
+		return this.state;
+	}
+
+	public boolean isTerminal() {
+
+		return this.state != ONGOING;
+	}
+
+	public static final String help = " -h this menu" + "\n -x the X agent: -x <pi, vi, random, agg, def, human>"
+			+ "\n -o the O agent: -o <random, agg, def, human>"
+			+ "\n -s the agent that starts the game (x or o): -s <x or o>";
+
+	// public static void main(String args[]) throws IllegalMoveException
+	// {
+
+	// Game g=new Game();
+	// TTTMDP mdp=new TTTMDP();
+	//
+	// g.executeMove('X', 0, 0);
+	// g.executeMove('O', 1, 0);
+	// g.executeMove('X', 0, 2);
+	// g.executeMove('O', 1, 1);
+	//
+	// List<TransitionProb> transitions=mdp.generateTransitions(g, new Move('X', 0,
+	// 1));
+	// for(TransitionProb t:transitions)
+	// {
+	// System.out.println(t);
+	// }
+
+	// DEBUG valid games----
+	// List<Game> games=generateAllValidGames('X');
+	// for(Game g: games)
+	// {
+	// System.out.println(g);
+	// System.out.println(g.whoseTurn.getName());
+	// System.out.println("=============");
+	// }
+	// System.out.println("there were:"+games.size());
+	// }
+
+	/**
+	 * 
+	 * @param a
+	 * @throws IllegalMoveException of the there is an illegal move by one of the
+	 *                              agents. This would just exit the programme.
+	 */
+	public static void main(String a[]) throws IllegalMoveException {
+		List<String> args = Arrays.asList(a);
+		if (args.contains("-h")) {
+			System.out.println(help);
+			return;
+		}
+
+		Agent x = null;
+		Agent o = null;
+		String whoseTurn = null;
+		Iterator<String> iter = args.iterator();
+
+		while (iter.hasNext()) {
+			String cur = iter.next();
+			String next = null;
+			switch (cur) {
+			case "-x":
+				next = iter.next();
+				if (next == null || next.startsWith("-")) {
+					System.out.println("-x should be followed by the agent name, vi, pi, random, agg, def, or human");
+					return;
+				}
+				if (next.equals("vi")) {
+					System.out.println("x is vi agent.");
+					x = new ValueIterationAgent();
+				} else if (next.equals("pi")) {
+					System.out.println("X is pi agent.");
+					x = new PolicyIterationAgent();
+				} else if (next.equals("random")) {
+					System.out.println("X is random agent.");
+					x = new RandomAgent();
+				} else if (next.equals("human")) {
+					System.out.println("X is human agent.");
+					x = new HumanAgent();
+				} else if (next.equals("agg")) {
+
+					System.out.println("X is aggressive agent.");
+					x = new AggressiveAgent();
+				} else if (next.equals("def")) {
+					System.out.println("X is defensive agent.");
+					x = new DefensiveAgent();
+				} else if (next.equals("ql")) {
+					System.out.println("X is q learning agent.");
+					x = new QLearningAgent();
+				} else {
+					System.out.println("-x should be followed by the agent type: vi, pi, ql, random or human");
+					return;
+
+				}
+				break;
+			case "-o":
+				next = iter.next();
+
+				if (next == null || next.startsWith("-")) {
+					System.out.println("-o should be followed by the agent name e.g. random or human");
+					return;
+				}
+				if (next.equals("vi")) {
+					System.out.println("Error: the value iteration agent should be the X agent");
+					return;
+				}
+
+				else if (next.equals("pi")) {
+					System.out.println("Error: the policy iteration agent should be the X agent");
+					return;
+				} else if (next.equals("random"))
+					o = new RandomAgent();
+				else if (next.equals("human")) {
+					System.out.println("O is human agent");
+					o = new HumanAgent();
+				} else if (next.equals("agg")) {
+
+					System.out.println("O is aggressive agent.");
+					o = new AggressiveAgent();
+				} else if (next.equals("def")) {
+					System.out.println("O is defensive agent.");
+					o = new DefensiveAgent();
+				} else if (next.equals("ql")) {
+					System.out.println("O is q learning agent.");
+					o = new QLearningAgent();
+				} else {
+					System.out.println("Error: -x should be followed by the agent type: vi, pi, random or human");
+					return;
+
+				}
+				break;
+			case "-s":
+				next = iter.next();
+				if (next == null) {
+					System.out.println("Error: -s should be followed by the agent that starts the game: X or O");
+					return;
+				} else if (next.equalsIgnoreCase("x"))
+					whoseTurn = "x";
+				else if (next.equalsIgnoreCase("o"))
+					whoseTurn = "o";
+				else {
+					System.out.println("Error: -s should be followed by the agent that starts first: x or o");
+					return;
+				}
+				break;
+
+			}
+
+		}
+
+		if (x == null && o == null) {
+			x = new HumanAgent();
+			o = new RandomAgent();
+			System.out.println("X is human agent.");
+			System.out.println("O is random agent.");
+		} else if (x == null) {
+			System.out.println("X is random agent");
+			x = new RandomAgent();
+		} else if (o == null) {
+			System.out.println("O is random agent.");
+			o = new RandomAgent();
+		}
+
+		Game g;
+		if (whoseTurn == null || whoseTurn.equals("x"))
+			g = new Game(x, o);
+		else
+			g = new Game(x, o, o);
+
+		g.playOut();
+
+	}
+
+}
@@ -0,0 +1,229 @@
+package ticTacToe;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves a trained agent's moves over a plain socket on localhost. Every
+ * connection is a session with its own {@link Game}, in which the served agent
+ * plays X and the client plays O. All sessions share the agent and its
+ * {@link Policy}, so its {@link Agent#getMove(Game)} must be safe to call
+ * concurrently, which it is for the trained agents. Freezing the agent's policy
+ * first (see {@link Agent#freezePolicy()}) makes each lookup an array access.
+ *
+ * Each session runs on its own thread: a virtual thread where the JVM has them
+ * (Java 21 and later), so that thousands of mostly idle sessions cost little,
+ * and a platform thread otherwise.
+ *
+ * The protocol is line based. When a game starts the server plays X's first
+ * move and sends {@code MOVE <cell>}, where cell is 3*x+y. The client answers
+ * with the cell of its move, and the server replies with its next
+ * {@code MOVE <cell>}. When a game ends the server sends {@code END X},
+ * {@code END O} or {@code END DRAW}. The client can then send {@code NEW} to
+ * play another game in the same session, or {@code QUIT}. Invalid input is
+ * answered with {@code ERROR <message>} and otherwise ignored.
+ *
+ * Run it with {@code java ticTacToe.GameServer [port]} to serve a
+ * {@link ValueIterationAgent}.
+ *
+ */
+public class GameServer implements AutoCloseable {
+
+	final Agent agent;
+
+	final ServerSocket serverSocket;
+
+	final ExecutorService sessions;
+
+	final AtomicLong sessionCount = new AtomicLong();
+
+	final AtomicLong moveCount = new AtomicLong();
+
+	/**
+	 * Starts serving {@code agent} on {@code port} of the loopback interface.
+	 *
+	 * @param agent
+	 * @param port  the port, or 0 for any free one (see {@link #getPort()})
+	 * @throws IOException if the port can't be bound
+	 */
+	public GameServer(Agent agent, int port) throws IOException {
+		this.agent = agent;
+		this.serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+		this.sessions = newSessionExecutor();
+
+		Thread acceptor = new Thread(this::accept, "game-server-" + getPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * @return an executor that runs each task on a new virtual thread if the JVM
+	 *         supports them, and on a (pooled) platform thread otherwise
+	 */
+	static ExecutorService newSessionExecutor() {
+		try {
+			// Executors.newVirtualThreadPerTaskExecutor() exists from Java 21 on
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * @return the port the server listens on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return the number of sessions accepted so far
+	 */
+	public long getSessions() {
+		return sessionCount.get();
+	}
+
+	/**
+	 * @return the number of moves the agent has played so far
+	 */
+	public long getMoves() {
+		return moveCount.get();
+	}
+
+	/**
+	 * The longest pause after a failed accept, in milliseconds
+	 */
+	static final long MAX_ACCEPT_BACKOFF = 1000;
+
+	private void accept() {
+		long backoff = 0;
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				backoff = 0;
+				sessionCount.incrementAndGet();
+				sessions.execute(() -> serve(socket));
+			} catch (IOException e) {
+				if (serverSocket.isClosed())
+					break;
+				// e.g. out of file descriptors: retry later instead of spinning
+				backoff = Math.min(backoff == 0 ? 10 : 2 * backoff, MAX_ACCEPT_BACKOFF);
+				System.err.println("GameServer: accept failed (" + e + "), retrying in " + backoff + " ms");
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs one session until the client quits or disconnects.
+	 */
+	private void serve(Socket socket) {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+			s.setTcpNoDelay(true);
+
+			Game game = newGame(out);
+			out.flush();
+			for (String line; (line = in.readLine()) != null; out.flush()) {
+				line = line.trim();
+				if (line.equals("QUIT"))
+					break;
+				if (line.equals("NEW")) {
+					game = newGame(out);
+					continue;
+				}
+				if (game.isTerminal()) {
+					out.println("ERROR the game is over");
+					continue;
+				}
+
+				int cell;
+				try {
+					cell = Integer.parseInt(line);
+				} catch (NumberFormatException e) {
+					out.println("ERROR not a cell: " + line);
+					continue;
+				}
+				if (cell < 0 || cell > 8 || !game.isLegal(Move.of(game.o, cell))) {
+					out.println("ERROR illegal move: " + line);
+					continue;
+				}
+
+				game.executeMove(Move.of(game.o, cell));
+				if (game.isTerminal())
+					out.println(end(game));
+				else
+					play(game, out);
+			}
+		} catch (IOException | IllegalMoveException e) {
+			// the session ends, other sessions go on
+		}
+	}
+
+	/**
+	 * Starts a new game of the session, and plays X's first move
+	 */
+	private Game newGame(PrintWriter out) throws IllegalMoveException {
+		Game game = new Game(agent, new Agent(), agent);
+		play(game, out);
+		return game;
+	}
+
+	/**
+	 * Plays the agent's move in {@code game} and sends it, followed by the result
+	 * if it ends the game
+	 */
+	private void play(Game game, PrintWriter out) throws IllegalMoveException {
+		Move m = agent.getMove(game);
+		game.executeMove(m);
+		moveCount.incrementAndGet();
+		out.println("MOVE " + (3 * m.x + m.y));
+		if (game.isTerminal())
+			out.println(end(game));
+	}
+
+	private static String end(Game game) {
+		switch (game.getState()) {
+		case Game.X_WON:
+			return "END X";
+		case Game.O_WON:
+			return "END O";
+		default:
+			return "END DRAW";
+		}
+	}
+
+	/**
+	 * Stops accepting sessions and ends the running ones.
+	 */
+	public void close() throws IOException {
+		serverSocket.close();
+		sessions.shutdownNow();
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7878;
+		ValueIterationAgent agent = new ValueIterationAgent();
+		agent.freezePolicy();
+		GameServer server = new GameServer(agent, port);
+		System.out.println("Serving a value iteration agent on localhost:" + server.getPort());
+	}
+
+}
@@ -1,92 +1,182 @@
-package ticTacToe;
-
-/**
- * A move in the Tic-Tac-Toe game. If the game is modelled as an MDP, a Move is essentially an MDP Action.
- * @author ae187
- *
- */
-public class Move {
-	
-	/**
-	 * can be either 'X', or 'O' 
-	 */
-	public Agent who;
-	public int x;
-	public int y;
-	
-	public Move(char who, int x, int y)
-	{
-		if (who!='X' && who!='O')
-			throw new IllegalArgumentException("Can only be a move by X or by O");
-		
-		this.who=new Agent();
-		this.who.setName(who);
-		
-		if (x<0 || x>2 || y<0 || y>2)
-			throw new IllegalArgumentException("Invalid x or y coordinates");
-		this.x=x;
-		this.y=y;
-		
-	}
-	
-	public Move(Agent who, int x, int y)
-	{
-		if (who.getName()!='X' && who.getName()!='O')
-			throw new IllegalArgumentException("Can only be a move by X or by O");
-		
-		this.who=who;
-		
-		if (x<0 || x>2 || y<0 || y>2)
-			throw new IllegalArgumentException("Invalid x or y coordinates");
-		this.x=x;
-		this.y=y;
-		
-	}
-	
-	public Move(int x, int y)
-	{
-		this('X', x, y);
-	
-	}
-	
-	public String toString()
-	{
-		return who+"("+x+","+y+")";
-	}
-
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((who == null) ? 0 : who.getName());
-		result = prime * result + x;
-		result = prime * result + y;
-		return result;
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		Move other = (Move) obj;
-		if (this.who.getName()!=other.who.getName())
-			return false;
-		
-		if (x != other.x)
-			return false;
-		
-		if (y != other.y)
-			return false;
-		
-		return true;
-	}
-	
-	
-	
-	
-
-}
+package ticTacToe;
+
+/**
+ * A move in the Tic-Tac-Toe game. If the game is modelled as an MDP, a Move is essentially an MDP Action.
+ * @author ae187
+ *
+ */
+public class Move {
+	
+	/**
+	 * The number of distinct moves, and of move codes (see {@link #code()}): 9 cells for each of X and O
+	 */
+	public static final int NUM_CODES=18;
+	
+	/**
+	 * The shared players of the interned moves. They never join a game, and can't be renamed.
+	 */
+	private static final Agent X=player('X');
+	private static final Agent O=player('O');
+	
+	/**
+	 * The interned moves, indexed by code
+	 */
+	private static final Move[] MOVES=new Move[NUM_CODES];
+	
+	static
+	{
+		for (int cell=0; cell<9; cell++)
+		{
+			MOVES[cell]=new Move(X, cell/3, cell%3);
+			MOVES[9+cell]=new Move(O, cell/3, cell%3);
+		}
+	}
+	
+	/**
+	 * can be either 'X', or 'O' 
+	 */
+	public final Agent who;
+	public final int x;
+	public final int y;
+	
+	/**
+	 * see {@link #code()}
+	 */
+	private final byte code;
+	
+	/**
+	 * Creates a new move. Prefer {@link #of(char, int)} and the other factories, which return the interned moves and 
+	 * allocate nothing.
+	 */
+	public Move(char who, int x, int y)
+	{
+		this(who=='X'?X:who=='O'?O:null, x, y);
+	}
+	
+	/**
+	 * Creates a new move. Prefer {@link #of(Agent, int)}, which returns the interned move and allocates nothing.
+	 */
+	public Move(Agent who, int x, int y)
+	{
+		if (who==null || (who.getName()!='X' && who.getName()!='O'))
+			throw new IllegalArgumentException("Can only be a move by X or by O");
+		
+		this.who=who;
+		
+		if (x<0 || x>2 || y<0 || y>2)
+			throw new IllegalArgumentException("Invalid x or y coordinates");
+		this.x=x;
+		this.y=y;
+		this.code=(byte) ((who.getName()=='O'?9:0)+3*x+y);
+		
+	}
+	
+	public Move(int x, int y)
+	{
+		this('X', x, y);
+	
+	}
+	
+	private static Agent player(char name)
+	{
+		Agent player=new Agent() {
+			@Override
+			public void setName(char n)
+			{
+				if (n!=getName())
+					throw new UnsupportedOperationException("The player of an interned move can't be renamed");
+			}
+		};
+		player.name=name;
+		return player;
+	}
+	
+	/**
+	 * @param who  'X' or 'O'
+	 * @param cell the cell (3*x+y) of the move
+	 * @return the interned move of {@code who} in {@code cell}
+	 */
+	public static Move of(char who, int cell)
+	{
+		if (who!='X' && who!='O')
+			throw new IllegalArgumentException("Can only be a move by X or by O");
+		if (cell<0 || cell>8)
+			throw new IllegalArgumentException("Invalid cell "+cell);
+		return MOVES[(who=='O'?9:0)+cell];
+	}
+	
+	/**
+	 * @return the interned move of {@code who} at {@code (x,y)}
+	 */
+	public static Move of(char who, int x, int y)
+	{
+		if (x<0 || x>2 || y<0 || y>2)
+			throw new IllegalArgumentException("Invalid x or y coordinates");
+		return of(who, 3*x+y);
+	}
+	
+	/**
+	 * @return the interned move of the player {@code who} (X or O) in {@code cell}
+	 */
+	public static Move of(Agent who, int cell)
+	{
+		return of(who.getName(), cell);
+	}
+	
+	/**
+	 * @param code a move code, see {@link #code()}
+	 * @return the interned move with that code
+	 */
+	public static Move decode(int code)
+	{
+		if (code<0 || code>=NUM_CODES)
+			throw new IllegalArgumentException("Invalid move code "+code);
+		return MOVES[code];
+	}
+	
+	/**
+	 * @return the code of this move, between 0 and {@link #NUM_CODES}-1: its cell (3*x+y) for X, and 9 plus its
+	 * cell for O. Equal moves have equal codes, so it can stand for the move in a {@code byte[]} or other primitive 
+	 * collection; {@link #decode(int)} gives the move back.
+	 */
+	public byte code()
+	{
+		return code;
+	}
+	
+	/**
+	 * @return the cell (3*x+y) of this move
+	 */
+	public int cell()
+	{
+		return 3*x+y;
+	}
+	
+	/**
+	 * @return the interned move equal to this one
+	 */
+	public Move intern()
+	{
+		return MOVES[code];
+	}
+	
+	public String toString()
+	{
+		return who+"("+x+","+y+")";
+	}
+
+	@Override
+	public int hashCode() {
+		return code;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Move))
+			return false;
+		return code == ((Move) obj).code;
+	}
+
+}
@@ -1,64 +1,231 @@
-package ticTacToe;
-
-
-import java.util.HashMap;
-
-/**
- * A Tic Tac Toe Policy implemented via a HashMap
- * @author ae187
- *
- */
-public class Policy {
-	
-	/**
-	 * a hash map that stores the policy
-	 */
-	HashMap<Game, Move> policy=new HashMap<Game, Move>();
-	
-	/**
-	 * Create policy according to this map
-	 * @param policy
-	 */
-	public Policy(HashMap<Game, Move> policy) {
-		this.policy=policy;
-	}
-	
-	public Policy()
-	{}
-	
-	/**
-	 * Default behaviour here is that if the game state is not in the policy map {@link Policy#policy} then the policy returns null.
-	 * You can override this method for different behaviours, e.g. returning a random move if this happens.
-	 *  
-	 * @param g
-	 * @return
-	 */
-	public Move getMove(Game g) {
-		
-		if (policy.containsKey(g))
-			return policy.get(g);
-		
-		return null;
-		
-		
-	}
-	
-	/**
-	 * loads policy from file. One possible format for storing a policy is as a sequence of lines where each line
-	 * specifies the action/move determined by the policy in a particular game state. The game states should not
-	 * explicitly stored, only their hashes are stored. The {@link Game} object itself can be constructed using the 
-	 * {@link Game#inverseHash} method.
-	 *  
-	 * @param file
-	 */
-	public Policy(String file)
-	{
-		/* implement this constructor to load a stored policy from file. */
-		
-	}
-
-	
-	
-	
-
-}
+package ticTacToe;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * A Tic Tac Toe Policy implemented via a HashMap
+ * @author ae187
+ *
+ */
+public class Policy {
+	
+	/**
+	 * a hash map that stores the policy
+	 */
+	HashMap<Game, Move> policy=new HashMap<Game, Move>();
+	
+	/**
+	 * if true, {@link #policy} only maps canonical games (see {@link Game#canonical()}), and the move in any other game
+	 * is the move of its canonical form, transformed back.
+	 */
+	boolean symmetric=false;
+	
+	/**
+	 * For a policy loaded from file (see {@link #Policy(String)}): the cell (3*x+y) of the move in each game, indexed by 
+	 * {@link Game#hashCode()}, or {@link #NO_MOVE}. It is a read-only view of the memory-mapped file, so processes 
+	 * that load the same file share its pages. Null for other policies.
+	 */
+	ByteBuffer cells;
+	
+	/**
+	 * The first 4 bytes of a policy file, "TTTP"
+	 */
+	static final int MAGIC=0x54545450;
+	
+	static final int VERSION=1;
+	
+	/**
+	 * A policy file is a header of {@link #MAGIC}, {@link #VERSION} and the number of cells that follow 
+	 * ({@link Game#NUM_HASHES}), as big-endian ints; then one byte per game hash, the cell of the move in that game or 
+	 * {@link #NO_MOVE}; then the CRC-32 of those bytes.
+	 */
+	static final int HEADER_BYTES=12;
+	
+	/**
+	 * The cell stored for games the policy has no move in
+	 */
+	static final byte NO_MOVE=-1;
+	
+	/**
+	 * The random numbers used by the policies that play random moves, one generator per thread. {@link Tournament}
+	 * reseeds it before each game, so that its games can be replayed.
+	 */
+	static final ThreadLocal<Random> RANDOM=ThreadLocal.withInitial(Random::new);
+	
+	/**
+	 * @return the random numbers of the current thread, see {@link #RANDOM}
+	 */
+	protected static Random random()
+	{
+		return RANDOM.get();
+	}
+	
+	/**
+	 * Create policy according to this map
+	 * @param policy
+	 */
+	public Policy(HashMap<Game, Move> policy) {
+		this.policy=policy;
+	}
+	
+	/**
+	 * Create policy according to this map. If {@code symmetric}, the map need only contain canonical games.
+	 * @param policy
+	 * @param symmetric
+	 */
+	public Policy(HashMap<Game, Move> policy, boolean symmetric) {
+		this.policy=policy;
+		this.symmetric=symmetric;
+	}
+	
+	public Policy()
+	{}
+	
+	/**
+	 * Default behaviour here is that if the game state is not in the policy map {@link Policy#policy} then the policy returns null.
+	 * You can override this method for different behaviours, e.g. returning a random move if this happens.
+	 *  
+	 * @param g
+	 * @return
+	 */
+	public Move getMove(Game g) {
+		
+		if (cells!=null)
+		{
+			int cell=cells.get(g.hashCode());
+			return cell==NO_MOVE?null:Move.of(g.whoseTurn, cell);
+		}
+		
+		if (symmetric)
+		{
+			int t=g.canonicalTransform();
+			Move m=policy.get(g.transform(t));
+			return m==null?null:Symmetry.invert(t, m);
+		}
+		
+		return policy.get(g);
+		
+		
+	}
+	
+	/**
+	 * @return true if this policy is keyed on canonical games only
+	 */
+	public boolean isSymmetric()
+	{
+		return symmetric;
+	}
+	
+	/**
+	 * Loads a policy saved by {@link #save(String)}. The file is memory-mapped rather than read, so this is fast and
+	 * the moves are only paged in as games are looked up. The returned policy has a move in every game the saved
+	 * policy had one in, whether or not that was symmetric.
+	 *  
+	 * @param file
+	 * @throws IOException if the file can't be read, or isn't a valid policy file
+	 */
+	public Policy(String file) throws IOException
+	{
+		ByteBuffer buffer;
+		try (FileChannel channel=FileChannel.open(Paths.get(file), StandardOpenOption.READ))
+		{
+			if (channel.size()!=HEADER_BYTES+Game.NUM_HASHES+4)
+				throw new IOException("Not a policy file: "+file);
+			// the mapping stays valid after the channel is closed
+			buffer=channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		
+		if (buffer.getInt(0)!=MAGIC || buffer.getInt(4)!=VERSION || buffer.getInt(8)!=Game.NUM_HASHES)
+			throw new IOException("Not a policy file: "+file);
+		
+		int checksum=buffer.getInt(HEADER_BYTES+Game.NUM_HASHES);
+		buffer.position(HEADER_BYTES).limit(HEADER_BYTES+Game.NUM_HASHES);
+		ByteBuffer cells=buffer.slice();
+		CRC32 crc=new CRC32();
+		crc.update(cells.duplicate());
+		if ((int) crc.getValue()!=checksum)
+			throw new IOException("Corrupt policy file: "+file);
+		
+		this.cells=cells.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Saves the move this policy plays in every valid game that isn't over, as described at {@link #HEADER_BYTES}, for
+	 * {@link #Policy(String)}. The file is written in full under a temporary name first and then renamed, so a reader
+	 * never sees it half-written.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(String file) throws IOException
+	{
+		ByteBuffer buffer=ByteBuffer.allocate(HEADER_BYTES+Game.NUM_HASHES+4);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(Game.NUM_HASHES);
+		buffer.put(toCells());
+		CRC32 crc=new CRC32();
+		crc.update(buffer.array(), HEADER_BYTES, Game.NUM_HASHES);
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+		
+		Path target=Paths.get(file).toAbsolutePath();
+		Path temp=Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try
+		{
+			try (FileChannel channel=FileChannel.open(temp, StandardOpenOption.WRITE))
+			{
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * @return the cell (3*x+y) of the move this policy plays in every valid game that isn't over, indexed by 
+	 * {@link Game#hashCode()}, and {@link #NO_MOVE} for other games and those it has no move in
+	 */
+	byte[] toCells()
+	{
+		if (cells!=null)
+		{
+			byte[] copy=new byte[Game.NUM_HASHES];
+			cells.duplicate().get(copy);
+			return copy;
+		}
+		byte[] result=new byte[Game.NUM_HASHES];
+		for (int hash=0; hash<Game.NUM_HASHES; hash++)
+		{
+			Game g=Game.inverseHash(hash);
+			Move m=g!=null && isPlayable(g)?getMove(g):null;
+			result[hash]=m==null?NO_MOVE:(byte) (3*m.x+m.y);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return true if {@code g} could come up in play and isn't over: no one has a line, there is an empty cell, and 
+	 * the players have played the same number of moves, give or take one
+	 */
+	private static boolean isPlayable(Game g)
+	{
+		int xs=Integer.bitCount(g.xMask);
+		int os=Integer.bitCount(g.oMask);
+		return !Game.hasLine(g.xMask) && !Game.hasLine(g.oMask) && g.emptyMask()!=0 && Math.abs(xs-os)<=1;
+	}
+
+}
@@ -1,265 +1,701 @@
-package ticTacToe;
-
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Random;
-
-/**
- * A policy iteration agent. You should implement the following methods:
- * (1) {@link PolicyIterationAgent#evaluatePolicy}: this is the policy evaluation step from your lectures
- * (2) {@link PolicyIterationAgent#improvePolicy}: this is the policy improvement step from your lectures
- * (3) {@link PolicyIterationAgent#train}: this is a method that should runs/alternate (1) and (2) until convergence. 
- * 
- * NOTE: there are two types of convergence involved in Policy Iteration: Convergence of the Values of the current policy, 
- * and Convergence of the current policy to the optimal policy.
- * The former happens when the values of the current policy no longer improve by much (i.e. the maximum improvement is less than 
- * some small delta). The latter happens when the policy improvement step no longer updates the policy, i.e. the current policy 
- * is already optimal. The algorithm should stop when this happens.
- * 
- * @author ae187
- *
- */
-public class PolicyIterationAgent extends Agent {
-
-	/**
-	 * This map is used to store the values of states according to the current policy (policy evaluation). 
-	 */
-	HashMap<Game, Double> policyValues = new HashMap<Game, Double>();
-	
-	/**
-	 * This stores the current policy as a map from {@link Game}s to {@link Move}. 
-	 */
-	HashMap<Game, Move> curPolicy=new HashMap<Game, Move>();
-	
-	double discount=0.9;
-	
-	/**
-	 * The mdp model used, see {@link TTTMDP}
-	 */
-	TTTMDP mdp;
-	
-	/**
-	 * loads the policy from file if one exists. Policies should be stored in .pol files directly under the project folder.
-	 */
-	public PolicyIterationAgent() {
-		super();
-		this.mdp=new TTTMDP();
-		initValues();
-		initRandomPolicy();
-		train();
-				
-	}
-	
-	
-	/**
-	 * Use this constructor to initialise your agent with an existing policy
-	 * @param p
-	 */
-	public PolicyIterationAgent(Policy p) {
-		super(p);
-		
-	}
-
-	/**
-	 * Use this constructor to initialise a learning agent with default MDP paramters (rewards, transitions, etc) as specified in 
-	 * {@link TTTMDP}
-	 * @param discountFactor
-	 */
-	public PolicyIterationAgent(double discountFactor) {
-		this.discount=discountFactor;
-		this.mdp=new TTTMDP();
-		initValues();
-		initRandomPolicy();
-//		this.policy = new Policy(); 
-		train();
-	}
-	/**
-	 * Use this constructor to set the various parameters of the Tic-Tac-Toe MDP
-	 * @param discountFactor
-	 * @param winningReward
-	 * @param losingReward
-	 * @param livingReward
-	 * @param drawReward
-	 */
-	public PolicyIterationAgent(double discountFactor, double winningReward, double losingReward, double livingReward, double drawReward)
-	{
-		this.discount=discountFactor;
-		this.mdp=new TTTMDP(winningReward, losingReward, livingReward, drawReward);
-		initValues();
-		initRandomPolicy();
-		train();
-	}
-	/**
-	 * Initialises the {@link #policyValues} map, and sets the initial value of all states to 0 
-	 * (V0 under some policy pi ({@link #curPolicy} from the lectures). Uses {@link Game#inverseHash} and {@link Game#generateAllValidGames(char)} to do this. 
-	 * 
-	 */
-	public void initValues()
-	{
-		List<Game> allGames=Game.generateAllValidGames('X');//all valid games where it is X's turn, or it's terminal.
-		for(Game g: allGames)
-			this.policyValues.put(g, 0.0);		
-	}
-	
-	/**
-	 *  You should implement this method to initially generate a random policy, i.e. fill the {@link #curPolicy} for every state. Take care that the moves you choose
-	 *  for each state ARE VALID. You can use the {@link Game#getPossibleMoves()} method to get a list of valid moves and choose 
-	 *  randomly between them. 
-	 *  
-	 *  Initialise random policy
-	 */
-	public void initRandomPolicy()
-	{
-		/*
-		 * YOUR CODE HERE
-		 */
-		
-//		Iterate through all game states in the policyValues map
-		for(Game gameState: policyValues.keySet()) {
-			Random random = new Random();	
-			if (!gameState.isTerminal()) {   
-//				Create a list of all possible moves for current game state. 
-				List<Move> moves = gameState.getPossibleMoves();
-				
-				for (int i=0;i<moves.size();i++) {
-
-//				Create randomMove from list of possible moves
-				Move randomMove = moves.get(random.nextInt(moves.size())); 
-//				Assign the random move to the current game state
-				this.curPolicy.put(gameState, randomMove);  
-				}				
-			}
-		}	
-	}
-	
-	
-	/**
-	 * Performs policy evaluation steps until the maximum change in values is less than {@code delta}, in other words
-	 * until the values under the currrent policy converge. After running this method, 
-	 * the {@link PolicyIterationAgent#policyValues} map should contain the values of each reachable state under the current policy. 
-	 * You should use the {@link TTTMDP} {@link PolicyIterationAgent#mdp} provided to do this.
-	 *
-	 * @param delta
-	 * 
-	 * 
-	 * Initialise the random policy 
-	 * Evaluate policy
-	 * Improve policy
-	 * Same as value iteration but we do not maximize  over actions
-	 */
-	protected void evaluatePolicy(double delta)
-	{
-		/* YOUR CODE HERE */
-			double curStateValue=0; //current state's calculated value
-			double prevStateValue; //previous state's  value
-			double maxChange = Double.NEGATIVE_INFINITY;
-			int stateCount =0;  // counter for how many times the while loop runs or number of times it evaluates the state value
-			Move currentMove; //current state move
-			
-//			Iterate until maxChange is less than delta
-			while(true) {
-				//Iterates over all states in current policy			
-				for (Game gameState: curPolicy.keySet()) {
-					curStateValue = 0;//cur state value
-					currentMove = curPolicy.get(gameState);
-					//check for improvements 
-					prevStateValue = policyValues.get(gameState);			
-					
-//					Calculate current state value using the formula
-					for(TransitionProb moveProb: mdp.generateTransitions(gameState, currentMove)) {                                                 //perform the Q*(s,a) = sum{T(s,a,s')}
-						curStateValue += (moveProb.prob * (moveProb.outcome.localReward + (discount * policyValues.get(moveProb.outcome.sPrime))));
-					}	
-
-						//update state value in policy values map
-						policyValues.put(gameState, curStateValue);	
-						 maxChange = Math.abs(prevStateValue - curStateValue);
-					} 
-				
-				 if (maxChange <= delta) {
-			            break;
-			        }
-				} 							
-	}
-		
-	
-	
-	/**This method should be run AFTER the {@link PolicyIterationAgent#evaluatePolicy} train method to improve the current policy according to 
-	 * {@link PolicyIterationAgent#policyValues}. You will need to do a single step of expectimax from each game (state) key in {@link PolicyIterationAgent#curPolicy} 
-	 * to look for a move/action that potentially improves the current policy. 
-	 * 
-	 * @return true if the policy improved. Returns false if there was no improvement, i.e. the policy already returned the optimal actions.
-	 */
-	protected boolean improvePolicy()
-	{
-		/* YOUR CODE HERE */
-		 boolean isPolicyImproved = false;
-
-		//iterate over states in current policy
-		    for (Game gameState : curPolicy.keySet()) {
-		        double previousValue = policyValues.get(gameState);
-
-		      //possible moves in cur state
-		        for (Move possibleMove : gameState.getPossibleMoves()) {
-		        	double calculatedValue = 0;					
-					//for transition probability 
-					for (TransitionProb mvProb : mdp.generateTransitions(gameState, possibleMove)){
-						//calculate q value
-						calculatedValue += (mvProb.prob * (mvProb.outcome.localReward + discount * policyValues.get(mvProb.outcome.sPrime)));
-						
-					}
-					//improve policy
-		            if (calculatedValue > previousValue) {
-		                // Update policy and value if improvement is found
-		                curPolicy.replace(gameState, possibleMove);
-		                //update value of state
-		                policyValues.replace(gameState, calculatedValue);
-		                isPolicyImproved = true;
-		            }
-		        }
-		    }
-		    return isPolicyImproved;			   		
-	}
-	
-	/**
-	 * The (convergence) delta
-	 */
-	double delta=0.1;
-	
-	/**
-	 * This method should perform policy evaluation and policy improvement steps until convergence (i.e. until the policy
-	 * no longer changes), and so uses your 
-	 * {@link PolicyIterationAgent#evaluatePolicy} and {@link PolicyIterationAgent#improvePolicy} methods.
-	 */
-	public void train()
-	{
-		/* YOUR CODE HERE */				
-		this.evaluatePolicy(delta);
-		
-		while (this.improvePolicy()) { //loops until no changes
-			this.evaluatePolicy(delta);
-		}
-		super.policy = new Policy(curPolicy);
-	}
-
-
-
-	
-	public static void main(String[] args) throws IllegalMoveException
-	{
-		/**
-		 * Test code to run the Policy Iteration Agent agains a Human Agent.
-		 */
-		PolicyIterationAgent pi=new PolicyIterationAgent();
-		
-		HumanAgent h=new HumanAgent();
-		
-		Game g=new Game(pi, h, h);
-		
-		g.playOut();
-		
-		
-	}
-	
-
-}
+package ticTacToe;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A policy iteration agent. You should implement the following methods:
+ * (1) {@link PolicyIterationAgent#evaluatePolicy}: this is the policy evaluation step from your lectures
+ * (2) {@link PolicyIterationAgent#improvePolicy}: this is the policy improvement step from your lectures
+ * (3) {@link PolicyIterationAgent#train}: this is a method that should runs/alternate (1) and (2) until convergence. 
+ * 
+ * NOTE: there are two types of convergence involved in Policy Iteration: Convergence of the Values of the current policy, 
+ * and Convergence of the current policy to the optimal policy.
+ * The former happens when the values of the current policy no longer improve by much (i.e. the maximum improvement is less than 
+ * some small delta). The latter happens when the policy improvement step no longer updates the policy, i.e. the current policy 
+ * is already optimal. The algorithm should stop when this happens.
+ * 
+ * @author ae187
+ *
+ */
+public class PolicyIterationAgent extends Agent {
+
+	/**
+	 * The states, numbered densely. See {@link StateIndex}.
+	 */
+	StateIndex states;
+	
+	/**
+	 * This array is used to store the values of states according to the current policy (policy evaluation),
+	 * indexed by their id in {@link #states}. 
+	 */
+	double[] policyValues;
+	
+	/**
+	 * This stores the current policy: the cell (3*x+y) of the {@link Move} to play in each state, indexed by
+	 * state id. Terminal states have no move and are set to -1.
+	 */
+	byte[] curPolicy;
+	
+	double discount=0.9;
+	
+	/**
+	 * The mdp model used, see {@link TTTMDP}
+	 */
+	TTTMDP mdp;
+	
+	/**
+	 * The compiled form of {@link #mdp}, see {@link TTTMDP#getCompiledModel()}. Fetched at the start of {@link #train()}.
+	 */
+	CompiledMDP model;
+	
+	/**
+	 * How {@link #evaluatePolicy(double)} computes the values of the current policy
+	 */
+	public enum Evaluation {
+		/**
+		 * In-place sweeps over all states in id order, until the largest change in a sweep is at most delta: each 
+		 * update sees the values already updated in the same sweep.
+		 */
+		GAUSS_SEIDEL,
+		/**
+		 * Synchronous sweeps over all states, until the largest change in a sweep is at most delta: every sweep reads 
+		 * only the values of the previous one. This is the only mode that can use several 
+		 * {@link PolicyIterationAgent#threads}.
+		 */
+		JACOBI,
+		/**
+		 * Solves the linear system (I - discount*P)V = R of the policy exactly, by back-substitution: a single in-place 
+		 * pass in reverse move-count order, so that every state is updated after all of its successors. This works 
+		 * because the game is acyclic.
+		 */
+		EXACT
+	}
+	
+	/**
+	 * The evaluation mode of {@link #evaluatePolicy(double)}
+	 */
+	Evaluation evaluation=Evaluation.GAUSS_SEIDEL;
+	
+	/**
+	 * The number of threads used by {@link #evaluatePolicy(double)} in {@link Evaluation#JACOBI} mode. With 1 the sweeps
+	 * run sequentially in the calling thread, otherwise each sweep is partitioned across a {@link ForkJoinPool} of 
+	 * this many threads. Both give bit-identical values.
+	 */
+	int threads=1;
+	
+	/**
+	 * The statistics of each policy evaluation of the last {@link #train()}, one per policy iteration: the residual of 
+	 * its last sweep, and the state updates, backups and time of all its sweeps together
+	 */
+	List<SweepStats> evaluationStats=new ArrayList<SweepStats>();
+	
+	/**
+	 * The number of sweeps of each policy evaluation of the last {@link #train()}
+	 */
+	List<Integer> evaluationSweeps=new ArrayList<Integer>();
+	
+	/**
+	 * The statistics of each policy improvement of the last {@link #train()}: the number of states whose move changed, 
+	 * the backups (states re-examined) and the time
+	 */
+	List<SweepStats> improvementStats=new ArrayList<SweepStats>();
+	
+	/**
+	 * The number of evaluation sweeps between policy improvements for modified policy iteration, or 0 to evaluate 
+	 * every policy until its values converge. Evaluation also stops before m sweeps once the values have converged.
+	 */
+	int sweepsPerImprovement=0;
+	
+	/**
+	 * Whether the value of each state changed since the last policy improvement. Only the states with a successor 
+	 * among them can find a better move, so {@link #improvePolicy()} only re-examines those.
+	 */
+	boolean[] changed;
+	
+	/**
+	 * Sweeps over fewer states than this are not split further between threads.
+	 */
+	static final int SWEEP_GRAIN=512;
+	
+	/**
+	 * Where the values and policy are checkpointed during {@link #train()}, or null, see 
+	 * {@link #setCheckpoint(String, int)}
+	 */
+	Checkpoint checkpoint;
+	
+	/**
+	 * The number of policy improvements between checkpoints
+	 */
+	int checkpointInterval;
+	
+	/**
+	 * If true, values and moves are kept for canonical states only (see {@link StateIndex#getSymmetricInstance()}), 
+	 * about 8 times fewer, and the extracted policy is a symmetric {@link Policy}.
+	 */
+	boolean symmetric=false;
+	
+	/**
+	 * loads the policy from file if one is cached (see {@link Agent#POLICY_CACHE_PROPERTY}), and trains the agent otherwise.
+	 */
+	public PolicyIterationAgent() {
+		super();
+		this.mdp=new TTTMDP();
+		initValues();
+		initRandomPolicy();
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+				
+	}
+	
+	
+	/**
+	 * Use this constructor to initialise your agent with an existing policy
+	 * @param p
+	 */
+	public PolicyIterationAgent(Policy p) {
+		super(p);
+		
+	}
+
+	/**
+	 * Use this constructor to initialise a learning agent with default MDP paramters (rewards, transitions, etc) as specified in 
+	 * {@link TTTMDP}
+	 * @param discountFactor
+	 */
+	public PolicyIterationAgent(double discountFactor) {
+		this.discount=discountFactor;
+		this.mdp=new TTTMDP();
+		initValues();
+		initRandomPolicy();
+//		this.policy = new Policy(); 
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+	/**
+	 * Use this constructor to set the various parameters of the Tic-Tac-Toe MDP
+	 * @param discountFactor
+	 * @param winningReward
+	 * @param losingReward
+	 * @param livingReward
+	 * @param drawReward
+	 */
+	public PolicyIterationAgent(double discountFactor, double winningReward, double losingReward, double livingReward, double drawReward)
+	{
+		this.discount=discountFactor;
+		this.mdp=new TTTMDP(winningReward, losingReward, livingReward, drawReward);
+		initValues();
+		initRandomPolicy();
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+	/**
+	 * Initialises the {@link #policyValues} array, and sets the initial value of all states to 0 
+	 * (V0 under some policy pi ({@link #curPolicy} from the lectures). The states are all valid games where it is X's
+	 * turn, or it's terminal, as numbered by {@link #states}. 
+	 * 
+	 */
+	public void initValues()
+	{
+		this.states=symmetric ? StateIndex.getSymmetricInstance() : StateIndex.getInstance();
+		this.policyValues=new double[states.size()];		
+	}
+	
+	/**
+	 *  You should implement this method to initially generate a random policy, i.e. fill the {@link #curPolicy} for every state. Take care that the moves you choose
+	 *  for each state ARE VALID. You can use the {@link Game#getLegalMoveMask()} method to get a mask of the valid moves and choose 
+	 *  randomly between them. 
+	 *  
+	 *  Initialise random policy
+	 */
+	public void initRandomPolicy()
+	{
+		/*
+		 * YOUR CODE HERE
+		 */
+		
+		this.curPolicy=new byte[states.size()];
+		Random random = new Random();	
+//		Iterate through all game states
+		for(int s=0;s<states.size();s++) {
+			Game gameState = states.game(s);
+			curPolicy[s] = -1;
+			if (!gameState.isTerminal()) {   
+//				The legal moves of the current game state, as a mask of cells 
+				int legal = gameState.getLegalMoveMask();
+
+//				Assign a random one of them to the current game state
+				this.curPolicy[s] = (byte) Game.nthCell(legal, random.nextInt(Integer.bitCount(legal)));  
+			}
+		}	
+	}
+	
+	
+	/**
+	 * Performs policy evaluation steps until the maximum change in values is less than {@code delta}, in other words
+	 * until the values under the currrent policy converge. After running this method, 
+	 * the {@link PolicyIterationAgent#policyValues} array contains the values of each state under the current policy. 
+	 * The values are computed from the compiled {@link PolicyIterationAgent#mdp} as set by {@link #evaluation}, and 
+	 * the statistics of the evaluation are added to {@link #evaluationStats} and {@link #evaluationSweeps}.
+	 *
+	 * @param delta the largest change in a sweep at which the values count as converged. It is not used by 
+	 * {@link Evaluation#EXACT}, which converges in one pass.
+	 */
+	protected void evaluatePolicy(double delta)
+	{
+		initChanged();
+		long start=System.nanoTime();
+		int sweeps=0;
+		int updated=0;
+		long backups=0;
+		SweepStats stats;
+		
+		if (evaluation==Evaluation.JACOBI) {
+			// the values of the previous sweep are read from policyValues while the new ones are written into next
+			double[] next=new double[policyValues.length];
+			ForkJoinPool pool=threads>1?new ForkJoinPool(threads):null;
+			try {
+				do {
+					stats=pool==null?sweep(0, model.numStates(), next):pool.invoke(new SweepTask(0, model.numStates(), next));
+					double[] previous=policyValues;
+					policyValues=next;
+					next=previous;
+					sweeps++;
+					updated+=stats.statesUpdated;
+					backups+=stats.backups;
+				} while (stats.residual>delta && !enoughSweeps(sweeps));
+			}
+			finally {
+				if (pool!=null)
+					pool.shutdown();
+			}
+		}
+		else {
+			boolean exact=evaluation==Evaluation.EXACT;
+			do {
+				stats=sweepInPlace(exact);
+				sweeps++;
+				updated+=stats.statesUpdated;
+				backups+=stats.backups;
+			} while (!exact && stats.residual>delta && !enoughSweeps(sweeps));
+		}
+		
+		evaluationStats.add(new SweepStats(stats.residual, updated, backups, System.nanoTime()-start));
+		evaluationSweeps.add(sweeps);
+	}
+	
+	/**
+	 * Marks all states as changed, so that the next improvement examines every state, unless {@link #changed} is 
+	 * already tracking the states
+	 */
+	private void initChanged()
+	{
+		if (changed==null || changed.length!=states.size()) {
+			changed=new boolean[states.size()];
+			Arrays.fill(changed, true);
+		}
+	}
+	
+	/**
+	 * @return true if an evaluation of modified policy iteration has done all of its sweeps, see 
+	 * {@link #sweepsPerImprovement}
+	 */
+	private boolean enoughSweeps(int sweeps)
+	{
+		return sweepsPerImprovement>0 && sweeps>=sweepsPerImprovement;
+	}
+	
+	/**
+	 * @return the value of state {@code s} under the current policy, one step ahead of {@link #policyValues}, or 0 if 
+	 * it is terminal
+	 */
+	private double backup(int s)
+	{
+		if (curPolicy[s]==-1)
+			return 0.0;
+		return model.qValue(model.action(s, curPolicy[s]), policyValues, discount);
+	}
+	
+	/**
+	 * One in-place evaluation sweep, in id order or (for {@link Evaluation#EXACT}) in topological order
+	 * 
+	 * @return the residual, number of states updated and backups of the sweep
+	 */
+	private SweepStats sweepInPlace(boolean topological)
+	{
+		double residual=0.0;
+		int updated=0;
+		long backups=0;
+		for (int j=0;j<model.numStates();j++) {
+			int s=topological?model.topological(j):j;
+			if (curPolicy[s]==-1)
+				continue;
+			double value=backup(s);
+			backups++;
+			double change=Math.abs(value-policyValues[s]);
+			policyValues[s]=value;
+			if (change>0) {
+				updated++;
+				residual=Math.max(residual, change);
+				changed[s]=true;
+			}
+		}
+		return new SweepStats(residual, updated, backups, 0);
+	}
+	
+	/**
+	 * One synchronous evaluation sweep for the states with ids {@code from} to {@code to}-1, reading values from 
+	 * {@link #policyValues} and writing the new ones into {@code next}.
+	 * 
+	 * @return the residual, number of states updated and backups over these states
+	 */
+	SweepStats sweep(int from, int to, double[] next)
+	{
+		double residual=0.0;
+		int updated=0;
+		long backups=0;
+		for (int s=from;s<to;s++) {
+			double value=backup(s);
+			if (curPolicy[s]!=-1)
+				backups++;
+			next[s]=value;
+			double change=Math.abs(value-policyValues[s]);
+			if (change>0) {
+				updated++;
+				residual=Math.max(residual, change);
+				changed[s]=true;
+			}
+		}
+		return new SweepStats(residual, updated, backups, 0);
+	}
+	
+	/**
+	 * One synchronous sweep over a range of states, split in halves until they are smaller than {@link #SWEEP_GRAIN}.
+	 */
+	private class SweepTask extends RecursiveTask<SweepStats>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		final int from;
+		final int to;
+		final double[] next;
+		
+		SweepTask(int from, int to, double[] next)
+		{
+			this.from=from;
+			this.to=to;
+			this.next=next;
+		}
+		
+		@Override
+		protected SweepStats compute()
+		{
+			if (to-from<=SWEEP_GRAIN)
+				return sweep(from, to, next);
+			
+			int mid=(from+to)>>>1;
+			SweepTask left=new SweepTask(from, mid, next);
+			left.fork();
+			SweepStats right=new SweepTask(mid, to, next).compute();
+			return left.join().merge(right);
+		}
+	}
+		
+	
+	
+	/**This method should be run AFTER the {@link PolicyIterationAgent#evaluatePolicy} train method to improve the current policy according to 
+	 * {@link PolicyIterationAgent#policyValues}. It does a single step of expectimax in each state that has a successor whose value 
+	 * changed since the last improvement (see {@link #changed}), and switches to the move with the best q-value if that is strictly 
+	 * better than the q-value of the current move. Comparing against the current move, rather than against the state's value, 
+	 * keeps the policy from switching between moves of equal value. The statistics of the improvement are added to 
+	 * {@link #improvementStats}.
+	 * 
+	 * @return true if the policy improved. Returns false if there was no improvement, i.e. the policy already returned the optimal actions.
+	 */
+	protected boolean improvePolicy()
+	{
+		initChanged();
+		long start=System.nanoTime();
+		boolean[] dirty=new boolean[states.size()];
+		for (int s=0;s<states.size();s++) {
+			if (!changed[s])
+				continue;
+			for (int i=model.firstPredecessor(s);i<model.endPredecessor(s);i++)
+				dirty[model.predecessor(i)]=true;
+		}
+		Arrays.fill(changed, false);
+		
+		int improved=0;
+		long backups=0;
+		//iterate over the states whose successors changed
+		for (int s=0;s<states.size();s++) {
+			if (!dirty[s] || curPolicy[s]==-1)
+				continue;
+			backups++;
+			int current=model.action(s, curPolicy[s]);
+			double currentValue=model.qValue(current, policyValues, discount);
+			double bestValue=currentValue;
+			int best=current;
+			//possible moves in cur state
+			for (int a=model.firstAction(s);a<model.endAction(s);a++) {
+				//calculate q value over the transition probabilities
+				double value=model.qValue(a, policyValues, discount);
+				if (value>bestValue) {
+					bestValue=value;
+					best=a;
+				}
+			}
+			if (best!=current) {
+				// Update policy and value if improvement is found
+				curPolicy[s]=(byte) model.cell(best);
+				policyValues[s]=bestValue;
+				changed[s]=true;
+				improved++;
+			}
+		}
+		improvementStats.add(new SweepStats(0.0, improved, backups, System.nanoTime()-start));
+		return improved>0;
+	}
+	
+	/**
+	 * The (convergence) delta
+	 */
+	double delta=0.1;
+	
+	/**
+	 * This method should perform policy evaluation and policy improvement steps until convergence (i.e. until the policy
+	 * no longer changes), and so uses your 
+	 * {@link PolicyIterationAgent#evaluatePolicy} and {@link PolicyIterationAgent#improvePolicy} methods.
+	 */
+	public void train()
+	{
+		/* YOUR CODE HERE */				
+		this.model=mdp.getCompiledModel(symmetric);
+		evaluationStats=new ArrayList<SweepStats>();
+		evaluationSweeps=new ArrayList<Integer>();
+		improvementStats=new ArrayList<SweepStats>();
+		// the first improvement examines every state
+		changed=null;
+		this.evaluatePolicy(delta);
+		
+		long improvements=checkpoint==null?0:Math.max(0, checkpoint.getProgress());
+		//loops until the policy no longer changes and, with modified policy iteration, its values have converged
+		while (this.improvePolicy() || (evaluation!=Evaluation.EXACT && lastResidual()>delta)) {
+			this.evaluatePolicy(delta);
+			improvements++;
+			if (checkpoint!=null && improvements%checkpointInterval==0)
+				checkpoint.save(policyValues, curPolicy, improvements);
+		}
+		if (checkpoint!=null) {
+			checkpoint.save(policyValues, curPolicy, improvements);
+			checkpoint.flush();
+		}
+		super.policy = extractPolicy();
+	}
+	
+	/**
+	 * @return the residual of the last evaluation sweep
+	 */
+	private double lastResidual()
+	{
+		return evaluationStats.get(evaluationStats.size()-1).residual;
+	}
+	
+	/**
+	 * Checkpoints the values and the policy to {@code file} every {@code interval} policy improvements of 
+	 * {@link #train()}, and when it is done, see {@link Checkpoint}. If {@code file} holds a checkpoint already, the 
+	 * values and policy are restored from it, so the next call to {@link #train()} resumes from there. Call this after 
+	 * {@link #setSymmetric(boolean)}, which resets them.
+	 * @param file
+	 * @param interval
+	 * @throws IOException if the file can't be used, e.g. because it holds the values of another state space
+	 */
+	public void setCheckpoint(String file, int interval) throws IOException
+	{
+		if (interval<1)
+			throw new IllegalArgumentException("The interval must be positive");
+		this.checkpoint=new Checkpoint(file, policyValues.length, curPolicy.length);
+		this.checkpointInterval=interval;
+		checkpoint.restore(policyValues, curPolicy);
+	}
+	
+	/**
+	 * @return the cache file of the policy of this agent's MDP and discount, see {@link Agent#POLICY_CACHE_PROPERTY}
+	 */
+	protected String policyFile()
+	{
+		return cacheFile("PolicyIterationAgent", discount, mdp.winReward, mdp.loseReward, mdp.livingReward, mdp.drawReward);
+	}
+	
+	/**
+	 * @return the current policy ({@link #curPolicy}) as a {@link Policy}
+	 */
+	public Policy extractPolicy()
+	{
+		Policy p = new Policy(new HashMap<Game, Move>(), symmetric);
+		for (int s=0;s<states.size();s++) {
+			if (curPolicy[s]!=-1)
+				p.policy.put(states.game(s), moveOf(curPolicy[s]));
+		}
+		return p;
+	}
+	
+	/**
+	 * Sets how the policy is evaluated, see {@link Evaluation}. Takes effect on the next call to {@link #train()}.
+	 * @param evaluation
+	 */
+	public void setEvaluation(Evaluation evaluation)
+	{
+		this.evaluation=evaluation;
+	}
+	
+	/**
+	 * Sets the number of threads used by {@link Evaluation#JACOBI} evaluation, see {@link #threads}. Takes effect on the
+	 * next call to {@link #train()}.
+	 * @param threads
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads<1)
+			throw new IllegalArgumentException("Need at least one thread");
+		this.threads=threads;
+	}
+	
+	/**
+	 * @return the statistics of each policy evaluation of the last {@link #train()}, see {@link #evaluationStats}
+	 */
+	public List<SweepStats> getEvaluationStats()
+	{
+		return new ArrayList<SweepStats>(evaluationStats);
+	}
+	
+	/**
+	 * Sets the convergence threshold of policy evaluation, see {@link #delta}. Takes effect on the next call to 
+	 * {@link #train()}.
+	 * @param delta evaluation stops once the largest change of a sweep is at most this
+	 */
+	public void setConvergence(double delta)
+	{
+		this.delta=delta;
+	}
+	
+	/**
+	 * Switches to modified policy iteration with at most {@code sweeps} evaluation sweeps between policy improvements,
+	 * or back to full evaluation with 0, see {@link #sweepsPerImprovement}. Takes effect on the next call to 
+	 * {@link #train()}.
+	 * @param sweeps
+	 */
+	public void setSweepsPerImprovement(int sweeps)
+	{
+		if (sweeps<0)
+			throw new IllegalArgumentException("The number of sweeps can't be negative");
+		this.sweepsPerImprovement=sweeps;
+	}
+	
+	/**
+	 * @return the statistics of each policy improvement of the last {@link #train()}, see {@link #improvementStats}
+	 */
+	public List<SweepStats> getImprovementStats()
+	{
+		return new ArrayList<SweepStats>(improvementStats);
+	}
+	
+	/**
+	 * @return the number of backups of the last {@link #train()}: the policy backups of all evaluation sweeps and the 
+	 * states re-examined by all improvements
+	 */
+	public long getBackups()
+	{
+		long backups=0;
+		for (SweepStats stats: evaluationStats)
+			backups+=stats.backups;
+		for (SweepStats stats: improvementStats)
+			backups+=stats.backups;
+		return backups;
+	}
+	
+	/**
+	 * @return the number of sweeps of each policy evaluation of the last {@link #train()}
+	 */
+	public int[] getEvaluationSweeps()
+	{
+		int[] sweeps=new int[evaluationSweeps.size()];
+		for (int i=0;i<sweeps.length;i++)
+			sweeps[i]=evaluationSweeps.get(i);
+		return sweeps;
+	}
+	
+	/**
+	 * @param g a game where it's X's turn, or a terminal game
+	 * @return the value of {@code g} under the current policy, as of the last policy evaluation
+	 */
+	public double getValue(Game g)
+	{
+		return policyValues[states.id(g)];
+	}
+	
+	/**
+	 * Switches between the full and the symmetry-reduced state space, see {@link #symmetric}. This resets the values 
+	 * and the policy to a new random one, and takes effect on the next call to {@link #train()}.
+	 * @param symmetric
+	 */
+	public void setSymmetric(boolean symmetric)
+	{
+		this.symmetric=symmetric;
+		initValues();
+		initRandomPolicy();
+	}
+	
+	/**
+	 * @return the cell (3*x+y) of move m
+	 */
+	static byte cellOf(Move m)
+	{
+		return (byte)(3*m.x+m.y);
+	}
+	
+	/**
+	 * @return X's move in {@code cell}, see {@link #cellOf(Move)}
+	 */
+	static Move moveOf(int cell)
+	{
+		return Move.of('X', cell);
+	}
+
+
+
+	
+	public static void main(String[] args) throws IllegalMoveException
+	{
+		/**
+		 * Test code to run the Policy Iteration Agent agains a Human Agent.
+		 */
+		PolicyIterationAgent pi=new PolicyIterationAgent();
+		
+		HumanAgent h=new HumanAgent();
+		
+		Game g=new Game(pi, h, h);
+		
+		g.playOut();
+		
+		
+	}
+	
+
+}
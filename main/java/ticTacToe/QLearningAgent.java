@@ -1,301 +1,541 @@
-package ticTacToe;
-
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-
-/**
- * A Q-Learning agent with a Q-Table, i.e. a table of Q-Values. This table is implemented in the {@link QTable} class.
- * 
- *  The methods to implement are: 
- * (1) {@link QLearningAgent#train}
- * (2) {@link QLearningAgent#extractPolicy}
- * 
- * Your agent acts in a {@link TTTEnvironment} which provides the method {@link TTTEnvironment#executeMove} which returns an {@link Outcome} object, in other words
- * an [s,a,r,s']: source state, action taken, reward received, and the target state after the opponent has played their move. You may want/need to edit
- * {@link TTTEnvironment} - but you probably won't need to. 
- * @author ae187
- */
-
-public class QLearningAgent extends Agent {
-	
-	/**
-	 * The learning rate, between 0 and 1.
-	 */
-	double alpha=0.1;
-	
-	/**
-	 * The number of episodes to train for
-	 */
-	int numEpisodes=50000;
-	
-	/**
-	 * The discount factor (gamma)
-	 */
-	double discount=0.9;
-	
-	
-	/**
-	 * The epsilon in the epsilon greedy policy used during training.
-	 */
-	double epsilon=0.1;
-	
-	/**
-	 * This is the Q-Table. To get an value for an (s,a) pair, i.e. a (game, move) pair.
-	 * 
-	 */
-	
-	QTable qTable=new QTable();
-	
-	
-	/**
-	 * This is the Reinforcement Learning environment that this agent will interact with when it is training.
-	 * By default, the opponent is the random agent which should make your q learning agent learn the same policy 
-	 * as your value iteration and policy iteration agents.
-	 */
-	TTTEnvironment env=new TTTEnvironment();
-	
-	
-	/**
-	 * Construct a Q-Learning agent that learns from interactions with {@code opponent}.
-	 * @param opponent the opponent agent that this Q-Learning agent will interact with to learn.
-	 * @param learningRate This is the rate at which the agent learns. Alpha from your lectures.
-	 * @param numEpisodes The number of episodes (games) to train for
-	 * @throws IllegalMoveException 
-	 */
-	public QLearningAgent(Agent opponent, double learningRate, int numEpisodes, double discount)
-	{
-		env=new TTTEnvironment(opponent);
-		this.alpha=learningRate;
-		this.numEpisodes=numEpisodes;
-		this.discount=discount;
-		initQTable();
-		train();
-	}
-
-	/**
-	 * Initialises all valid q-values -- Q(g,m) -- to 0.
-	 *  
-	 */
-	
-
-	protected void initQTable()
-	{
-		List<Game> allGames=Game.generateAllValidGames('X');//all valid games where it is X's turn, or it's terminal.
-		for(Game g: allGames)
-		{
-			List<Move> moves=g.getPossibleMoves();
-			for(Move m: moves)
-			{
-				this.qTable.addQValue(g, m, 0.0);
-				//System.out.println("initing q value. Game:"+g);
-				//System.out.println("Move:"+m);
-			}
-			
-		}
-		
-	}
-	
-	/**
-	 * Uses default parameters for the opponent (a RandomAgent) and the learning rate (0.2). Use other constructor to set these manually.
-	 * @throws IllegalMoveException 
-	 */
-	public QLearningAgent() 
-	{
-		this(new RandomAgent(), 0.1, 50000, 0.9);
-		
-	}
-	
-	
-	/**
-	 *  Implement this method. It should play {@code this.numEpisodes} episodes of Tic-Tac-Toe with the TTTEnvironment, updating q-values according 
-	 *  to the Q-Learning algorithm as required. The agent should play according to an epsilon-greedy policy where with the probability {@code epsilon} the
-	 *  agent explores, and with probability {@code 1-epsilon}, it exploits. 
-	 *  
-	 *  At the end of this method you should always call the {@code extractPolicy()} method to extract the policy from the learned q-values. This is currently
-	 *  done for you on the last line of the method.
-	 * @throws IllegalMoveException 
-	 */
-
-	public void train()
-	{
-		/* 
-		 * This method trains the Q-Learning agent. It iterates through the episodes
-		 * and selects a move by epsilon greedy policy
-		 * it then executes the selected move and updates the Q-value
-		 * 
-		 * YOUR CODE HERE
-		 */
-//		Variable to store current and new Q Value
-		double currentQValue=0.0;
-		double newQValue=0.0;
-		
-//		Iterate through the episodes 
-		for(int i=0; i<numEpisodes; i++) {
-			 env.reset();
-			while(!this.env.isTerminal()) {
-//				Get the current game state
-				Game currentGameState = this.env.getCurrentGameState();
-//				If the current state is a terminal state, skip it
-				if(currentGameState.isTerminal()){
-					continue;
-				}
-				
-				Move move = epsilonFunction(currentGameState);
-				try {
-					
-					Outcome outcome = this.env.executeMove(move);
-					
-//					Calculate new Q Value using Q learning
-					currentQValue = this.qTable.getQValue(outcome.s, outcome.move);
-					newQValue=updateQValue(currentQValue, outcome.localReward, outcome.sPrime);
-//					Update the Q table with the Q value 
-					this.qTable.addQValue(outcome.s, outcome.move, newQValue);
-					
-				} catch (IllegalMoveException e) {
-					e.printStackTrace();
-				}				
-			}
-			// Reset the environment after one iteration
-		this.env.reset();
-		}				
-				
-		//--------------------------------------------------------
-		//you shouldn't need to delete the following lines of code.
-		this.policy=extractPolicy();
-		if (this.policy==null)
-		{
-			System.out.println("Unimplemented methods! First implement the train() & extractPolicy methods");
-			//System.exit(1);
-		}
-	}
-
-	
-	/**
-	 * Helper function to update the Q-Value
-	 * Based on the current Q value, local reward and target state after the 
-	 * opponent's move, it calculates and returns the updated Q value
-	 * @param currentQValue
-	 * @param localReward
-	 * @param sPrime
-	 * @return
-	 */
-	private double updateQValue(double currentQValue, double localReward, Game sPrime) {
-	    double maxQValue = maximumQvalue(sPrime);
-	    return (1 - this.alpha) * currentQValue + this.alpha * (localReward + this.discount * maxQValue);
-	}
-	
-	
-	/**
-	 * Epsilon-greedy policy to select a move
-	 * @param game
-	 * @return
-	 */
-	private Move epsilonFunction(Game game) {
-		Random random = new Random();
-		double qvalue = 0.0;
-		double maxValue = Integer.MIN_VALUE;
-		List<Move> movesList = game.getPossibleMoves();	
-		Move move =null;
-		
-//		Choose a random move
-		if(random.nextDouble() < epsilon && !movesList.isEmpty()) {														
-				return movesList.get(random.nextInt(movesList.size()));			
-		}
-//		Choose the move with the maximum Q value
-		else {		
-			for (Move move1 : movesList){
-				qvalue = qTable.getQValue(game, move1);
-				if (qvalue>=maxValue) {
-					maxValue = qvalue;
-					move = move1;
-				}
-			}
-			return move; 
-		}			
-	}
-	
-
-	/**
-	 * 
-	 * function to find the maximum Q value for a given state
-	 * @param gPrime
-	 * @return
-	 */
-	private Double maximumQvalue(Game gPrime) {
-		if(gPrime.isTerminal()){
-			return 0.0;
-		}
-		double maxValue = Double.MIN_VALUE;			
-		for (Move move : gPrime.getPossibleMoves()){			
-			double qvalue = this.qTable.getQValue(gPrime, move);
-//			If the qValue is greater than maxValue, set the maxValue as QValue
-			if (qvalue>maxValue) {
-				maxValue = qvalue;
-			}
-		}
-		return maxValue;
-	}
-	
-	
-	/** Implement this method. It should use the q-values in the {@code qTable} to extract a policy and return it.
-	 *
-	 * This method extracts the policy from the learned Q-values
-	 * For each non-terminal state, it chooses the move with maximum Q-value and adds to the policy 
-	 * Then it returns the extracted policy
-	 *
-	 * @return the policy currently inherent in the QTable
-	 */
-	public Policy extractPolicy() {
-		/* 
-		 * YOUR CODE HERE
-		 */	
-	    Policy policy = new Policy();
-//	    Get all the states in the Q-table
-	    Set<Game> states = qTable.keySet();
-
-//	    If the state is a terminal state, skip it
-	    for (Game state : states) {
-	        if (state.isTerminal()) {
-	            continue;
-	        }
-
-	        Move bestMove = null;
-	        double maxQValue = Double.NEGATIVE_INFINITY;	        
-//	        Find the move with maximum Q-value for the current state 
-	        for (Move move : state.getPossibleMoves()) {
-	            double qValue = qTable.getQValue(state, move);	            
-	            if (qValue > maxQValue) {
-	                maxQValue = qValue;
-	                bestMove = move;
-	            }
-	        }
-//	        Add the best move to the policy
-	        if (bestMove != null) {
-	            policy.policy.put(state, bestMove);
-	        }
-	    }
-//		Return the policy
-	    return policy;
-	}
-
-	
-	/**
-	 * Main function
-	 * @param a
-	 * @throws IllegalMoveException
-	 */
-	public static void main(String a[]) throws IllegalMoveException
-	{
-		//Test method to play your agent against a human agent (yourself).
-		QLearningAgent agent=new QLearningAgent();
-		
-		HumanAgent d=new HumanAgent();
-		
-		Game g=new Game(agent, d, d);
-		g.playOut();
-				
-	}
-	
-}
-
+package ticTacToe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Q-Learning agent with a Q-Table, i.e. a table of Q-Values. This table is implemented in the {@link FlatQTable} class.
+ * 
+ *  The methods to implement are: 
+ * (1) {@link QLearningAgent#train}
+ * (2) {@link QLearningAgent#extractPolicy}
+ * 
+ * Your agent acts in a {@link TTTEnvironment} which provides the method {@link TTTEnvironment#executeMove} which returns an {@link Outcome} object, in other words
+ * an [s,a,r,s']: source state, action taken, reward received, and the target state after the opponent has played their move. You may want/need to edit
+ * {@link TTTEnvironment} - but you probably won't need to. 
+ * @author ae187
+ */
+
+public class QLearningAgent extends Agent {
+	
+	/**
+	 * The learning rate, between 0 and 1.
+	 */
+	double alpha=0.1;
+	
+	/**
+	 * The number of episodes to train for
+	 */
+	int numEpisodes=50000;
+	
+	/**
+	 * The discount factor (gamma)
+	 */
+	double discount=0.9;
+	
+	
+	/**
+	 * The epsilon in the epsilon greedy policy used during training.
+	 */
+	double epsilon=0.1;
+	
+	/**
+	 * This is the Q-Table. To get an value for an (s,a) pair, i.e. a (game, move) pair.
+	 * It is kept in flat arrays, see {@link FlatQTable}; {@link FlatQTable#toQTable()} gives a {@link QTable} view of it.
+	 */
+	
+	FlatQTable qTable=new FlatQTable();
+	
+	/**
+	 * The random numbers of the epsilon greedy policy. Parallel workers each have their own.
+	 */
+	Random random=new Random();
+	
+	/**
+	 * The number of worker threads {@link #train()} runs episodes on. Each worker has its own environment (with the same 
+	 * opponent, which must therefore be safe to share; the provided agents are) and random numbers, and they all update 
+	 * {@link #qTable} at once, without locks (Hogwild style), see {@link FlatQTable#moveTowards(int, double, double)}.
+	 */
+	int workers=1;
+	
+	/**
+	 * The training throughput of the last call to {@link #train()}
+	 */
+	double episodesPerSecond;
+	
+	/**
+	 * The capacity of the experience replay memory, see {@link #setReplay(int, int, double, boolean)}, or 0 to apply 
+	 * each transition once, as it happens. Each worker has a memory of its own, with an equal share of the capacity.
+	 */
+	int replayCapacity=0;
+	
+	/**
+	 * The number of transitions replayed in each mini-batch
+	 */
+	int replayBatch=32;
+	
+	/**
+	 * The number of mini-batches replayed per environment step, e.g. 0.25 for one every 4 steps
+	 */
+	double replayRatio=1;
+	
+	/**
+	 * If true, transitions are replayed in proportion to their last TD error, see {@link ReplayBuffer}
+	 */
+	boolean replayPrioritized=false;
+	
+	/**
+	 * The priority exponent of prioritized replay, see {@link ReplayBuffer#ReplayBuffer(int, double)}
+	 */
+	double replayPriorityExponent=0.6;
+	
+	/**
+	 * How much prioritized replay corrects for its biased sampling, see 
+	 * {@link ReplayBuffer#samplePrioritized(int[], double[], double, Random)}
+	 */
+	double replayBeta=0.4;
+	
+	
+	/**
+	 * Where the q-values are checkpointed during {@link #train()}, or null, see {@link #setCheckpoint(String, int)}
+	 */
+	Checkpoint checkpoint;
+	
+	/**
+	 * The number of episodes between checkpoints
+	 */
+	int checkpointInterval;
+	
+	/**
+	 * The number of episodes of the current {@link #train()} played so far, over all workers, including those restored 
+	 * from a checkpoint
+	 */
+	final AtomicLong episodesDone=new AtomicLong();
+	
+	/**
+	 * This is the Reinforcement Learning environment that this agent will interact with when it is training.
+	 * By default, the opponent is the random agent which should make your q learning agent learn the same policy 
+	 * as your value iteration and policy iteration agents.
+	 */
+	TTTEnvironment env=new TTTEnvironment();
+	
+	
+	/**
+	 * Construct a Q-Learning agent that learns from interactions with {@code opponent}.
+	 * @param opponent the opponent agent that this Q-Learning agent will interact with to learn.
+	 * @param learningRate This is the rate at which the agent learns. Alpha from your lectures.
+	 * @param numEpisodes The number of episodes (games) to train for
+	 * @throws IllegalMoveException 
+	 */
+	public QLearningAgent(Agent opponent, double learningRate, int numEpisodes, double discount)
+	{
+		this(opponent, learningRate, numEpisodes, discount, false);
+	}
+	
+	/**
+	 * Like {@link #QLearningAgent(Agent, double, int, double)}, but if {@code symmetric} the q-values are shared between 
+	 * symmetric game states (see {@link StateIndex#getSymmetricInstance()}), so every update also trains the other 7 variants.
+	 * @param opponent
+	 * @param learningRate
+	 * @param numEpisodes
+	 * @param discount
+	 * @param symmetric
+	 */
+	public QLearningAgent(Agent opponent, double learningRate, int numEpisodes, double discount, boolean symmetric)
+	{
+		this(opponent, learningRate, numEpisodes, discount, symmetric, 1);
+	}
+	
+	/**
+	 * Like {@link #QLearningAgent(Agent, double, int, double, boolean)}, but trains on {@code workers} threads, see 
+	 * {@link #workers}.
+	 * @param opponent
+	 * @param learningRate
+	 * @param numEpisodes
+	 * @param discount
+	 * @param symmetric
+	 * @param workers
+	 */
+	public QLearningAgent(Agent opponent, double learningRate, int numEpisodes, double discount, boolean symmetric, int workers)
+	{
+		if (workers < 1)
+			throw new IllegalArgumentException("Need at least one worker");
+		this.workers=workers;
+		env=new TTTEnvironment(opponent);
+		qTable=new FlatQTable(symmetric ? StateIndex.getSymmetricInstance() : StateIndex.getInstance());
+		this.alpha=learningRate;
+		this.numEpisodes=numEpisodes;
+		this.discount=discount;
+		initQTable();
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+
+	/**
+	 * Initialises all valid q-values -- Q(g,m) -- to 0.
+	 *  
+	 */
+	
+
+	protected void initQTable()
+	{
+		//the table already has a q-value for every valid game where it is X's turn, or it's terminal.
+		this.qTable.clear();
+		
+	}
+	
+	/**
+	 * Uses default parameters for the opponent (a RandomAgent) and the learning rate (0.2). Use other constructor to set these manually.
+	 * @throws IllegalMoveException 
+	 */
+	public QLearningAgent() 
+	{
+		this(new RandomAgent(), 0.1, 50000, 0.9);
+		
+	}
+	
+	
+	/**
+	 *  Implement this method. It should play {@code this.numEpisodes} episodes of Tic-Tac-Toe with the TTTEnvironment, updating q-values according 
+	 *  to the Q-Learning algorithm as required. The agent should play according to an epsilon-greedy policy where with the probability {@code epsilon} the
+	 *  agent explores, and with probability {@code 1-epsilon}, it exploits. 
+	 *  
+	 *  At the end of this method you should always call the {@code extractPolicy()} method to extract the policy from the learned q-values. This is currently
+	 *  done for you on the last line of the method.
+	 * @throws IllegalMoveException 
+	 */
+
+	public void train()
+	{
+		/* 
+		 * This method trains the Q-Learning agent. It iterates through the episodes
+		 * and selects a move by epsilon greedy policy
+		 * it then executes the selected move and updates the Q-value
+		 * 
+		 * YOUR CODE HERE
+		 */
+		long start = System.nanoTime();
+		int episodes = (int) Math.max(0, numEpisodes - episodesDone.get());
+		if (workers == 1)
+			runEpisodes(env, random, episodes, newReplayBuffer(replayCapacity));
+		else
+			runWorkers(episodes);
+		episodesPerSecond = episodes / ((System.nanoTime() - start) / 1e9);
+		
+		if (checkpoint != null) {
+			checkpoint.save(qTable.values, null, episodesDone.get());
+			checkpoint.flush();
+		}
+		episodesDone.set(0);
+				
+		//--------------------------------------------------------
+		//you shouldn't need to delete the following lines of code.
+		this.policy=extractPolicy();
+		if (this.policy==null)
+		{
+			System.out.println("Unimplemented methods! First implement the train() & extractPolicy methods");
+			//System.exit(1);
+		}
+	}
+
+	
+	/**
+	 * Plays {@code episodes} episodes in {@code env}, updating {@link #qTable} as it goes.
+	 * @param env
+	 * @param random the random numbers of the epsilon greedy policy
+	 * @param episodes
+	 * @param replay the replay memory to store the transitions in and replay from, or null
+	 */
+	private void runEpisodes(TTTEnvironment env, Random random, int episodes, ReplayBuffer replay) {
+		int[] slots = new int[replayBatch];
+		double[] weights = new double[replayBatch];
+		double replayCredit = 0;
+		
+//		Iterate through the episodes 
+		for(int i=0; i<episodes; i++) {
+			 env.reset();
+			while(!env.isTerminal()) {
+//				Get the current game state
+				Game currentGameState = env.getCurrentGameState();
+				
+				int cell = epsilonFunction(currentGameState, random);
+				try {
+//					The step changes the game in place, so find the q-value of (s,a) first
+					int q = this.qTable.index(currentGameState, cell);
+					double reward = env.step(cell);
+					
+//					Move Q(s,a) towards the Q learning target, atomically as other workers may update it too
+					Game sPrime = env.getCurrentGameState();
+					this.qTable.moveTowards(q, updateTarget(reward, sPrime), this.alpha);
+					
+					if (replay != null) {
+						replay.add(q / 9, q % 9, reward, qTable.getStates().id(sPrime), sPrime.isTerminal());
+						for (replayCredit += replayRatio; replayCredit >= 1; replayCredit--)
+							replay(replay, slots, weights, random);
+					}
+					
+				} catch (IllegalMoveException e) {
+					e.printStackTrace();
+				}				
+			}
+			
+			long done = episodesDone.incrementAndGet();
+			if (checkpoint != null && done % checkpointInterval == 0)
+				checkpoint.save(qTable.values, null, done);
+		}
+		// Reset the environment after the last episode
+		env.reset();
+	}
+	
+	/**
+	 * @return a new replay memory as configured by {@link #setReplay(int, int, double, boolean)}, or null if 
+	 * {@code capacity} is 0
+	 */
+	private ReplayBuffer newReplayBuffer(int capacity) {
+		if (capacity == 0)
+			return null;
+		return replayPrioritized ? new ReplayBuffer(capacity, replayPriorityExponent) : new ReplayBuffer(capacity);
+	}
+	
+	/**
+	 * Replays one mini-batch of transitions from {@code replay}: each sampled Q(s,a) is moved towards its Q learning 
+	 * target under the current q-values. With prioritized replay the learning rate is scaled by the importance 
+	 * sampling weight, and the priorities are updated with the new TD errors.
+	 */
+	private void replay(ReplayBuffer replay, int[] slots, double[] weights, Random random) {
+		if (replay.size() < slots.length)
+			return;
+		
+		if (replay.isPrioritized())
+			replay.samplePrioritized(slots, weights, replayBeta, random);
+		else
+			replay.sampleUniform(slots, random);
+		
+		for (int k = 0; k < slots.length; k++) {
+			int slot = slots[k];
+			int q = 9 * replay.getState(slot) + replay.getCell(slot);
+			double target = replay.getReward(slot);
+			if (!replay.isDone(slot))
+				target += this.discount * Math.max(Double.MIN_VALUE, qTable.max(replay.getNextState(slot)));
+			
+			if (replay.isPrioritized()) {
+				replay.updatePriority(slot, target - qTable.get(q));
+				qTable.moveTowards(q, target, this.alpha * weights[k]);
+			} else
+				qTable.moveTowards(q, target, this.alpha);
+		}
+	}
+	
+	/**
+	 * Turns experience replay on, or off with a {@code capacity} of 0. Every transition is then also stored in a 
+	 * {@link ReplayBuffer}, and after each step {@code replayRatio} mini-batches of {@code batchSize} stored 
+	 * transitions are replayed. Takes effect on the next call to {@link #train()}.
+	 * @param capacity the number of transitions remembered, over all workers; each worker remembers its share, 
+	 * rounded up
+	 * @param batchSize
+	 * @param replayRatio mini-batches replayed per environment step
+	 * @param prioritized whether to sample transitions by their TD error instead of uniformly
+	 */
+	public void setReplay(int capacity, int batchSize, double replayRatio, boolean prioritized)
+	{
+		if (capacity < 0 || batchSize < 1 || replayRatio < 0)
+			throw new IllegalArgumentException("Invalid replay parameters");
+		this.replayCapacity = capacity;
+		this.replayBatch = batchSize;
+		this.replayRatio = replayRatio;
+		this.replayPrioritized = prioritized;
+	}
+	
+	/**
+	 * Splits {@code numEpisodes} episodes between {@link #workers} threads, each with its own environment and 
+	 * random numbers, and waits for them all.
+	 */
+	private void runWorkers(int numEpisodes) {
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<?>> results = new ArrayList<Future<?>>();
+			for (int w = 0; w < workers; w++) {
+				final int episodes = numEpisodes / workers + (w < numEpisodes % workers ? 1 : 0);
+				final TTTEnvironment workerEnv = new TTTEnvironment(env);
+				final Random workerRandom = new Random(random.nextLong());
+				// each worker gets its share of the capacity, rounded up so that replay stays on
+				final ReplayBuffer workerReplay = newReplayBuffer((replayCapacity + workers - 1) / workers);
+				results.add(pool.submit(() -> runEpisodes(workerEnv, workerRandom, episodes, workerReplay)));
+			}
+			for (Future<?> result : results)
+				result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while training", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A training worker failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Sets the number of episodes {@link #train()} plays
+	 * @param numEpisodes
+	 */
+	public void setNumEpisodes(int numEpisodes)
+	{
+		this.numEpisodes = numEpisodes;
+	}
+	
+	/**
+	 * Checkpoints the q-values to {@code file} every {@code interval} episodes of {@link #train()}, and when it is done, 
+	 * see {@link Checkpoint}. Any worker may take a snapshot while the others go on updating the table. If 
+	 * {@code file} holds a checkpoint already, the q-values are restored from it, and the next call to {@link #train()} 
+	 * only plays the episodes that remained. The constructors train at once, so set the checkpoint on an agent 
+	 * constructed with 0 episodes and then call {@link #setNumEpisodes(int)} and {@link #train()}.
+	 * @param file
+	 * @param interval
+	 * @throws IOException if the file can't be used, e.g. because it holds the q-values of another state space
+	 */
+	public void setCheckpoint(String file, int interval) throws IOException
+	{
+		if (interval < 1)
+			throw new IllegalArgumentException("The interval must be positive");
+		this.checkpoint = new Checkpoint(file, qTable.values.length, 0);
+		this.checkpointInterval = interval;
+		this.episodesDone.set(Math.max(0, checkpoint.restore(qTable.values, null)));
+	}
+	
+	/**
+	 * Sets the number of worker threads, see {@link #workers}. Takes effect on the next call to {@link #train()}.
+	 * @param workers
+	 */
+	public void setWorkers(int workers)
+	{
+		if (workers < 1)
+			throw new IllegalArgumentException("Need at least one worker");
+		this.workers = workers;
+	}
+	
+	/**
+	 * @return the number of episodes per second the last call to {@link #train()} played, over all workers
+	 */
+	public double getEpisodesPerSecond()
+	{
+		return episodesPerSecond;
+	}
+	
+	/**
+	 * Helper function for the Q-Value update
+	 * Based on the local reward and target state after the opponent's move, it calculates and returns the 
+	 * target the Q value moves towards
+	 * @param localReward
+	 * @param sPrime
+	 * @return
+	 */
+	private double updateTarget(double localReward, Game sPrime) {
+	    double maxQValue = maximumQvalue(sPrime);
+	    return localReward + this.discount * maxQValue;
+	}
+	
+	
+	/**
+	 * Epsilon-greedy policy to select a move
+	 * @param game
+	 * @param random
+	 * @return the cell (3*x+y) of the move
+	 */
+	private int epsilonFunction(Game game, Random random) {
+		int legal = game.getLegalMoveMask();
+		
+//		Choose a random move: the n-th legal cell
+		if(random.nextDouble() < epsilon)
+			return Game.nthCell(legal, random.nextInt(Integer.bitCount(legal)));
+//		Choose the move with the maximum Q value, the last one on ties
+		return qTable.argmax(game);
+	}
+	
+
+	/**
+	 * 
+	 * function to find the maximum Q value for a given state
+	 * @param gPrime
+	 * @return
+	 */
+	private Double maximumQvalue(Game gPrime) {
+		if(gPrime.isTerminal()){
+			return 0.0;
+		}
+//		The maximum starts from Double.MIN_VALUE, so it is never below that
+		return Math.max(Double.MIN_VALUE, this.qTable.max(gPrime));
+	}
+	
+	
+	/**
+	 * @return the cache file of the policy learnt with this agent's opponent and parameters, see 
+	 * {@link Agent#POLICY_CACHE_PROPERTY}. Learning is random, so the cached policy is that of one training run.
+	 */
+	protected String policyFile()
+	{
+		return cacheFile("QLearningAgent", env.game.o.getClass().getSimpleName(), alpha, numEpisodes, discount, 
+				qTable.isSymmetric()?"symmetric":"full");
+	}
+	
+	/** Implement this method. It should use the q-values in the {@code qTable} to extract a policy and return it.
+	 *
+	 * This method extracts the policy from the learned Q-values
+	 * For each non-terminal state, it chooses the move with maximum Q-value and adds to the policy 
+	 * Then it returns the extracted policy
+	 *
+	 * @return the policy currently inherent in the QTable
+	 */
+	public Policy extractPolicy() {
+		/* 
+		 * YOUR CODE HERE
+		 */	
+	    Policy policy = new Policy(new HashMap<Game, Move>(), qTable.isSymmetric());
+//	    Get all the states in the Q-table
+	    StateIndex states = qTable.getStates();
+
+//	    If the state is a terminal state, skip it
+	    for (int s = 0; s < states.size(); s++) {
+	        Game state = states.game(s);
+	        if (state.isTerminal()) {
+	            continue;
+	        }
+
+//	        Find the move with maximum Q-value for the current state, and add it to the policy
+	        int bestCell = qTable.argmax(s, state.emptyMask());
+	        policy.policy.put(state, Move.of(state.whoseTurn, bestCell));
+	    }
+//		Return the policy
+	    return policy;
+	}
+
+	
+	/**
+	 * Main function
+	 * @param a
+	 * @throws IllegalMoveException
+	 */
+	public static void main(String a[]) throws IllegalMoveException
+	{
+		//Test method to play your agent against a human agent (yourself).
+		QLearningAgent agent=new QLearningAgent();
+		
+		HumanAgent d=new HumanAgent();
+		
+		Game g=new Game(agent, d, d);
+		g.playOut();
+				
+	}
+	
+}
+
@@ -0,0 +1,223 @@
+package ticTacToe;
+
+import java.util.Random;
+
+/**
+ * A fixed-capacity experience replay memory for Q-learning. Each transition
+ * (s, a, r, s', done) is kept as a state id, a cell (3*x+y), a reward, the
+ * next state id and a done flag, in primitive arrays. That takes 14 bytes per
+ * transition (plus 16 for the priorities of a prioritized buffer), so a buffer
+ * of tens of millions of transitions fits in a few hundred megabytes of heap,
+ * with no object per transition.
+ *
+ * The buffer is a ring: once it is full, each new transition replaces the
+ * oldest one. Transitions are sampled either uniformly, or (for a prioritized
+ * buffer) in proportion to a priority derived from their last TD error. The
+ * priorities are kept in a sum-tree so that sampling and updating are
+ * O(log capacity).
+ *
+ * State ids and cells are as in {@link FlatQTable#index(Game, int)}: the q-value
+ * of a transition is at {@code 9*state+cell}.
+ *
+ */
+public class ReplayBuffer {
+
+	final int[] state;
+	final byte[] cell;
+	final float[] reward;
+	final int[] nextState;
+	final boolean[] done;
+
+	/**
+	 * The number of transitions stored, at most the capacity
+	 */
+	int size;
+
+	/**
+	 * The slot the next transition is written to
+	 */
+	int next;
+
+	/**
+	 * The sum-tree of the priorities, or null for a uniform buffer: node i is the
+	 * sum of nodes 2i and 2i+1, and the priority of slot j is leaf
+	 * {@code capacity+j}. Node 1 is the sum of all priorities.
+	 */
+	final double[] priorities;
+
+	/**
+	 * A priority is {@code (|TD error|+PRIORITY_OFFSET)^priorityExponent}; 0 gives
+	 * uniform sampling
+	 */
+	final double priorityExponent;
+
+	/**
+	 * The largest priority so far, given to new transitions so that each is
+	 * sampled at least once with high probability
+	 */
+	double maxPriority = 1;
+
+	/**
+	 * Keeps transitions with no TD error sampleable
+	 */
+	static final double PRIORITY_OFFSET = 1e-6;
+
+	/**
+	 * A buffer with uniform sampling
+	 *
+	 * @param capacity the maximum number of transitions kept
+	 */
+	public ReplayBuffer(int capacity) {
+		this(capacity, false, 0);
+	}
+
+	/**
+	 * A buffer with prioritized sampling
+	 *
+	 * @param capacity         the maximum number of transitions kept
+	 * @param priorityExponent how strongly priorities skew sampling, see
+	 *                         {@link #priorityExponent}; 0.6 is typical
+	 */
+	public ReplayBuffer(int capacity, double priorityExponent) {
+		this(capacity, true, priorityExponent);
+	}
+
+	private ReplayBuffer(int capacity, boolean prioritized, double priorityExponent) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive");
+		this.state = new int[capacity];
+		this.cell = new byte[capacity];
+		this.reward = new float[capacity];
+		this.nextState = new int[capacity];
+		this.done = new boolean[capacity];
+		this.priorities = prioritized ? new double[2 * capacity] : null;
+		this.priorityExponent = priorityExponent;
+	}
+
+	/**
+	 * Stores a transition, replacing the oldest one if the buffer is full.
+	 *
+	 * @return the slot it was stored in
+	 */
+	public int add(int state, int cell, double reward, int nextState, boolean done) {
+		int slot = next;
+		this.state[slot] = state;
+		this.cell[slot] = (byte) cell;
+		this.reward[slot] = (float) reward;
+		this.nextState[slot] = nextState;
+		this.done[slot] = done;
+		if (priorities != null)
+			setPriority(slot, maxPriority);
+
+		next = next + 1 == capacity() ? 0 : next + 1;
+		if (size < capacity())
+			size++;
+		return slot;
+	}
+
+	public int capacity() {
+		return state.length;
+	}
+
+	/**
+	 * @return the number of transitions stored
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isPrioritized() {
+		return priorities != null;
+	}
+
+	public int getState(int slot) {
+		return state[slot];
+	}
+
+	public int getCell(int slot) {
+		return cell[slot];
+	}
+
+	public double getReward(int slot) {
+		return reward[slot];
+	}
+
+	public int getNextState(int slot) {
+		return nextState[slot];
+	}
+
+	public boolean isDone(int slot) {
+		return done[slot];
+	}
+
+	/**
+	 * Fills {@code slots} with slots drawn uniformly, with replacement, from the
+	 * stored transitions. The buffer must not be empty.
+	 */
+	public void sampleUniform(int[] slots, Random random) {
+		for (int k = 0; k < slots.length; k++)
+			slots[k] = random.nextInt(size);
+	}
+
+	/**
+	 * Fills {@code slots} with slots drawn in proportion to their priorities, one
+	 * from each of {@code slots.length} equal slices of the total priority. The
+	 * buffer must be prioritized and not empty.
+	 *
+	 * @param slots
+	 * @param weights receives the importance sampling weight of each slot,
+	 *                {@code (size*P(slot))^-beta} divided by the largest weight
+	 *                in the batch, to correct the updates for the biased sampling
+	 * @param beta    how much to correct, from 0 (not at all) to 1 (fully)
+	 * @param random
+	 */
+	public void samplePrioritized(int[] slots, double[] weights, double beta, Random random) {
+		double total = priorities[1];
+		double slice = total / slots.length;
+		double maxWeight = 0;
+		for (int k = 0; k < slots.length; k++) {
+			int slot = find((k + random.nextDouble()) * slice);
+			slots[k] = slot;
+			weights[k] = Math.pow(size * priorities[capacity() + slot] / total, -beta);
+			maxWeight = Math.max(maxWeight, weights[k]);
+		}
+		for (int k = 0; k < slots.length; k++)
+			weights[k] /= maxWeight;
+	}
+
+	/**
+	 * Sets the priority of {@code slot} from its latest TD error
+	 */
+	public void updatePriority(int slot, double error) {
+		double priority = Math.pow(Math.abs(error) + PRIORITY_OFFSET, priorityExponent);
+		maxPriority = Math.max(maxPriority, priority);
+		setPriority(slot, priority);
+	}
+
+	private void setPriority(int slot, double priority) {
+		int node = capacity() + slot;
+		priorities[node] = priority;
+		for (node >>= 1; node >= 1; node >>= 1)
+			priorities[node] = priorities[2 * node] + priorities[2 * node + 1];
+	}
+
+	/**
+	 * @return the slot where the running sum of priorities passes {@code u}
+	 */
+	private int find(double u) {
+		int node = 1;
+		while (node < capacity()) {
+			int left = 2 * node;
+			if (u < priorities[left] || priorities[left + 1] == 0) {
+				node = left;
+			} else {
+				u -= priorities[left];
+				node = left + 1;
+			}
+		}
+		int slot = node - capacity();
+		// rounding can lead past the stored transitions
+		return slot < size ? slot : size - 1;
+	}
+
+}
@@ -0,0 +1,319 @@
+package ticTacToe;
+
+
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A planning agent that solves the Tic Tac Toe MDP exactly by backward induction (retrograde analysis), instead of
+ * iterating to a fixed point like {@link ValueIterationAgent} and {@link PolicyIterationAgent}.
+ * 
+ * Every transition of the {@link TTTMDP} adds X's piece and, unless the game ends, O's reply, so the state graph is 
+ * acyclic and layered by the number of pieces on the board. The states from {@link Game#generateAllValidGames(char)} 
+ * are grouped into these layers and each layer is solved once, from the full board back to the empty one: by the time 
+ * a layer is reached the values of all its successors are final. States within a layer don't depend on each other, 
+ * so each layer is split across threads.
+ * 
+ * The resulting values are the ones value iteration converges to, and the policy is the one 
+ * {@link ValueIterationAgent#extractPolicy()} returns from them, so this agent can serve as a reference.
+ *
+ */
+public class RetrogradeAgent extends Agent {
+
+	/**
+	 * The states, numbered densely. See {@link StateIndex}.
+	 */
+	StateIndex states;
+	
+	/**
+	 * The value of each state, indexed by its id in {@link #states}
+	 */
+	double[] valueFunction;
+	
+	/**
+	 * The cell (3*x+y) of the best move in each state, indexed by state id; -1 for terminal states.
+	 */
+	byte[] bestCell;
+	
+	/**
+	 * layers[n] holds the ids of the states with n pieces on the board
+	 */
+	int[][] layers;
+	
+	/**
+	 * the discount factor
+	 */
+	double discount=0.9;
+	
+	/**
+	 * the MDP model
+	 */
+	TTTMDP mdp;
+	
+	/**
+	 * The compiled form of {@link #mdp}, fetched at the start of {@link #solve()}
+	 */
+	CompiledMDP model;
+	
+	/**
+	 * If true, only canonical states are solved (see {@link StateIndex#getSymmetricInstance()}), about 8 times fewer, 
+	 * and the extracted policy is a symmetric {@link Policy}.
+	 */
+	boolean symmetric=false;
+	
+	/**
+	 * The number of threads each layer is split across
+	 */
+	int threads=Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Ranges of fewer states than this are not split further between threads.
+	 */
+	static final int LAYER_GRAIN=256;
+	
+	/**
+	 * This constructor solves the default MDP (see {@link TTTMDP}) and sets its policy
+	 */
+	public RetrogradeAgent()
+	{
+		this(0.9);
+	}
+	
+	/**
+	 * Use this constructor to initialise your agent with an existing policy
+	 * @param p
+	 */
+	public RetrogradeAgent(Policy p)
+	{
+		super(p);
+	}
+	
+	public RetrogradeAgent(double discountFactor)
+	{
+		this.discount=discountFactor;
+		this.mdp=new TTTMDP();
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+	
+	/**
+	 * Use this constructor to set the various parameters of the Tic-Tac-Toe MDP
+	 * @param discountFactor
+	 * @param winReward
+	 * @param loseReward
+	 * @param livingReward
+	 * @param drawReward
+	 */
+	public RetrogradeAgent(double discountFactor, double winReward, double loseReward, double livingReward, double drawReward)
+	{
+		this.discount=discountFactor;
+		this.mdp=new TTTMDP(winReward, loseReward, livingReward, drawReward);
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+	
+	/**
+	 * Sets up an agent for {@code mdp} without solving it, e.g. to change the number of threads first; 
+	 * {@link #train()} solves it.
+	 * @param discountFactor
+	 * @param mdp
+	 */
+	RetrogradeAgent(double discountFactor, TTTMDP mdp)
+	{
+		this.discount=discountFactor;
+		this.mdp=mdp;
+	}
+	
+	/**
+	 * Groups the states of {@link #states} into layers by the number of pieces on the board.
+	 */
+	void initLayers()
+	{
+		int[] count=new int[10];
+		for (int s=0;s<states.size();s++)
+			count[pieces(s)]++;
+		
+		layers=new int[10][];
+		for (int n=0;n<10;n++)
+			layers[n]=new int[count[n]];
+		
+		int[] fill=new int[10];
+		for (int s=0;s<states.size();s++) {
+			int n=pieces(s);
+			layers[n][fill[n]++]=s;
+		}
+	}
+	
+	private int pieces(int s)
+	{
+		Game g=states.game(s);
+		return Integer.bitCount(g.xMask|g.oMask);
+	}
+	
+	/**
+	 * Solves the MDP layer by layer, from the full board back to the empty one. After running this method
+	 * {@link #valueFunction} holds the optimal value and {@link #bestCell} the optimal move of every state.
+	 */
+	public void solve()
+	{
+		model=mdp.getCompiledModel(symmetric);
+		states=model.getStates();
+		valueFunction=new double[states.size()];
+		bestCell=new byte[states.size()];
+		initLayers();
+		
+		ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		try {
+			for (int n=9;n>=0;n--) {
+				int[] layer=layers[n];
+				if (pool == null || layer.length <= LAYER_GRAIN)
+					solve(layer, 0, layer.length);
+				else
+					pool.invoke(new LayerTask(layer, 0, layer.length));
+			}
+		}
+		finally {
+			if (pool != null)
+				pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Solves the states {@code layer[from..to-1]}, whose successors must all be solved already.
+	 */
+	void solve(int[] layer, int from, int to)
+	{
+		for (int i=from;i<to;i++) {
+			int s=layer[i];
+			if (model.isTerminal(s)) {
+				valueFunction[s]=0.0;
+				bestCell[s]=-1;
+				continue;
+			}
+			// the maximum q-value, and the last move that reaches it, as ValueIterationAgent#extractPolicy picks it
+			double best=Double.NEGATIVE_INFINITY;
+			int cell=-1;
+			for (int a=model.firstAction(s);a<model.endAction(s);a++) {
+				double q=model.qValue(a, valueFunction, discount);
+				if (q>=best) {
+					best=q;
+					cell=model.cell(a);
+				}
+			}
+			valueFunction[s]=best;
+			bestCell[s]=(byte)cell;
+		}
+	}
+	
+	/**
+	 * Solves a range of a layer, split in halves until it is smaller than {@link #LAYER_GRAIN}.
+	 */
+	private class LayerTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		final int[] layer;
+		final int from;
+		final int to;
+		
+		LayerTask(int[] layer, int from, int to)
+		{
+			this.layer=layer;
+			this.from=from;
+			this.to=to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from <= LAYER_GRAIN) {
+				solve(layer, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new LayerTask(layer, from, mid), new LayerTask(layer, mid, to));
+		}
+	}
+	
+	/**
+	 * @return the cache file of the policy of this agent's MDP and discount, see {@link Agent#POLICY_CACHE_PROPERTY}
+	 */
+	protected String policyFile()
+	{
+		return cacheFile("RetrogradeAgent", discount, mdp.winReward, mdp.loseReward, mdp.livingReward, mdp.drawReward);
+	}
+	
+	/**
+	 * @return the policy that plays {@link #bestCell} in every non terminal state
+	 */
+	public Policy extractPolicy()
+	{
+		Policy p=new Policy(new HashMap<Game, Move>(), symmetric);
+		for (int s=0;s<states.size();s++) {
+			if (bestCell[s]==-1)
+				continue;
+			Game g=states.game(s);
+			p.policy.put(g, Move.of(g.whoseTurn, bestCell[s]));
+		}
+		return p;
+	}
+	
+	/**
+	 * @param g a game where it's X's turn, or a terminal game
+	 * @return the optimal value of {@code g} after {@link #solve()}
+	 */
+	public double getValue(Game g)
+	{
+		return valueFunction[states.id(g)];
+	}
+	
+	/**
+	 * Switches between the full and the symmetry-reduced state space, see {@link #symmetric}. Takes effect on the next 
+	 * call to {@link #train()}.
+	 * @param symmetric
+	 */
+	public void setSymmetric(boolean symmetric)
+	{
+		this.symmetric=symmetric;
+	}
+	
+	/**
+	 * Sets the number of threads each layer is split across. Takes effect on the next call to {@link #train()}.
+	 * @param threads
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("Need at least one thread");
+		this.threads = threads;
+	}
+	
+	/**
+	 * Solves the MDP and sets the agent's policy
+	 */
+	public void train()
+	{
+		solve();
+		super.policy=extractPolicy();
+	}
+	
+	
+	public static void main(String a[]) throws IllegalMoveException
+	{
+		//Test method to play the agent against a human agent.
+		RetrogradeAgent agent=new RetrogradeAgent();
+		
+		HumanAgent d=new HumanAgent();
+		
+		Game g=new Game(agent, d, d);
+		g.playOut();
+	}
+
+}
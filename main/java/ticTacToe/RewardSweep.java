@@ -0,0 +1,219 @@
+package ticTacToe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Solves the Tic-Tac-Toe MDP for a batch of reward and discount
+ * configurations, e.g. a grid of them when tuning the rewards, and plays each
+ * resulting policy against the standard opponents.
+ *
+ * All configurations share one compiled transition structure: the valid games
+ * and their transitions are enumerated once per process, and each
+ * configuration only rebuilds the reward array (see
+ * {@link CompiledMDP#withRewards(double, double, double, double)}). Each is then
+ * solved exactly by a {@link RetrogradeAgent}, in a single backward pass, and
+ * its policy frozen into a {@link CompiledPolicy} for the games. The
+ * configurations are solved and played in parallel, one per thread at a time.
+ *
+ * Run it with {@code java ticTacToe.RewardSweep [games] [threads]} to print the
+ * table of a default grid.
+ *
+ */
+public class RewardSweep {
+
+	/**
+	 * A discount factor and the rewards of {@link TTTMDP}
+	 */
+	public static class Config {
+
+		public final double discount;
+		public final double winReward;
+		public final double loseReward;
+		public final double livingReward;
+		public final double drawReward;
+
+		public Config(double discount, double winReward, double loseReward, double livingReward, double drawReward) {
+			this.discount = discount;
+			this.winReward = winReward;
+			this.loseReward = loseReward;
+			this.livingReward = livingReward;
+			this.drawReward = drawReward;
+		}
+
+		public String toString() {
+			return String.format("%5.2f %6.1f %6.1f %6.2f %6.1f", discount, winReward, loseReward, livingReward,
+					drawReward);
+		}
+	}
+
+	/**
+	 * The policy a configuration gives, and how it fared against each of
+	 * {@link RewardSweep#OPPONENTS}
+	 */
+	public static class Result {
+
+		public final Config config;
+
+		public final CompiledPolicy policy;
+
+		/**
+		 * The tournament results against each opponent, in the order of
+		 * {@link RewardSweep#OPPONENTS}
+		 */
+		public final Tournament.Result[] results;
+
+		Result(Config config, CompiledPolicy policy, Tournament.Result[] results) {
+			this.config = config;
+			this.policy = policy;
+			this.results = results;
+		}
+
+		/**
+		 * @return a short fingerprint of the policy (the CRC-32 of its moves), equal
+		 *         for configurations that give the same policy
+		 */
+		public String fingerprint() {
+			CRC32 crc = new CRC32();
+			crc.update(policy.moves);
+			return String.format("%08x", crc.getValue());
+		}
+
+		/**
+		 * @return the cell (3*x+y) of the policy's first move on the empty board
+		 */
+		public int openingCell() {
+			Move m = policy.getMove(new Game());
+			return 3 * m.x + m.y;
+		}
+	}
+
+	/**
+	 * The names of the opponents every policy plays
+	 */
+	public static final String[] OPPONENTS = { "random", "aggressive", "defensive" };
+
+	/**
+	 * @return an opponent of each kind in {@link #OPPONENTS}
+	 */
+	static Agent[] opponents() {
+		return new Agent[] { new RandomAgent(), new AggressiveAgent(), new DefensiveAgent() };
+	}
+
+	/**
+	 * @return every combination of the given values, the discount varying slowest
+	 */
+	public static List<Config> grid(double[] discounts, double[] winRewards, double[] loseRewards,
+			double[] livingRewards, double[] drawRewards) {
+		List<Config> configs = new ArrayList<Config>();
+		for (double discount : discounts)
+			for (double win : winRewards)
+				for (double lose : loseRewards)
+					for (double living : livingRewards)
+						for (double draw : drawRewards)
+							configs.add(new Config(discount, win, lose, living, draw));
+		return configs;
+	}
+
+	/**
+	 * Solves every configuration and plays its policy {@code games} games against
+	 * each opponent, X starting every game, on {@code threads} threads.
+	 *
+	 * @param configs
+	 * @param games   the number of games against each opponent
+	 * @param seed    the seed of the tournaments, the same for every configuration
+	 * @param threads
+	 * @return the results, in the order of {@code configs}
+	 * @throws IllegalMoveException if a policy plays an illegal move
+	 */
+	public static List<Result> solve(List<Config> configs, int games, long seed, int threads)
+			throws IllegalMoveException {
+		if (threads < 1)
+			throw new IllegalArgumentException("Need at least one thread");
+
+		// enumerate the shared structure once, before the workers need it
+		CompiledMDP.compile(new TTTMDP());
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Result>> futures = new ArrayList<Future<Result>>();
+			for (Config config : configs)
+				futures.add(pool.submit(() -> solve(config, games, seed)));
+			List<Result> results = new ArrayList<Result>();
+			for (Future<Result> future : futures)
+				results.add(future.get());
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted during the sweep", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IllegalMoveException)
+				throw (IllegalMoveException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Solves one configuration in the current thread and plays its policy
+	 */
+	static Result solve(Config config, int games, long seed) throws IllegalMoveException {
+		RetrogradeAgent agent = new RetrogradeAgent(config.discount,
+				new TTTMDP(config.winReward, config.loseReward, config.livingReward, config.drawReward));
+		// the configurations are already spread over the threads
+		agent.setThreads(1);
+		agent.train();
+		agent.freezePolicy();
+
+		Agent[] opponents = opponents();
+		Tournament.Result[] results = new Tournament.Result[opponents.length];
+		for (int i = 0; i < opponents.length; i++)
+			results[i] = Tournament.play(agent, opponents[i], games, seed, 1);
+		return new Result(config, (CompiledPolicy) agent.getPolicy(), results);
+	}
+
+	/**
+	 * @return a table with a row per result: the configuration, the policy's
+	 *         fingerprint and opening move, and its win/draw/loss percentages
+	 *         against each opponent
+	 */
+	public static String table(List<Result> results) {
+		StringBuilder table = new StringBuilder();
+		table.append("  gamma    win   lose living   draw   policy open");
+		for (String opponent : OPPONENTS)
+			table.append(String.format(" | %-17s", opponent + " W/D/L%"));
+		table.append('\n');
+		for (Result result : results) {
+			table.append(result.config).append(String.format(" %8s %4d", result.fingerprint(), result.openingCell()));
+			for (Tournament.Result r : result.results)
+				table.append(String.format(" | %5.1f %5.1f %5.1f", 100 * r.winRate(), 100 * r.drawRate(),
+						100 * r.lossRate()));
+			table.append('\n');
+		}
+		return table.toString();
+	}
+
+	public static void main(String[] args) throws IllegalMoveException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		List<Config> configs = grid(new double[] { 0.5, 0.9, 0.99 }, new double[] { 1, 10 },
+				new double[] { -1, -10, -50 }, new double[] { -1, 0 }, new double[] { 0, 1 });
+		long start = System.nanoTime();
+		List<Result> results = solve(configs, games, 0, threads);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.print(table(results));
+		System.out.printf("%d configurations, %d games each against %d opponents, in %.1f s%n", configs.size(), games,
+				OPPONENTS.length, seconds);
+	}
+
+}
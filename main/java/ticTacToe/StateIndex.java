@@ -0,0 +1,142 @@
+package ticTacToe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A dense numbering of a set of game states: a bijection between their
+ * {@link Game#hashCode()}s, which range over the 3^10 base-3 codes, and the ids
+ * 0..{@link #size()}-1. Planning agents use it to keep values and policies in
+ * plain arrays indexed by state id instead of maps keyed on {@link Game}.
+ * 
+ * The shared instance returned by {@link #getInstance()} numbers all valid
+ * games where it is X's turn, plus all terminal games, as returned by
+ * {@link Game#generateAllValidGames(char)}, in increasing hash order.
+ * 
+ * A symmetric index, like {@link #getSymmetricInstance()}, only numbers
+ * canonical games (see {@link Game#canonical()}). Every game then gets the id of
+ * its canonical form, so all 8 symmetric variants share one id.
+ *
+ */
+public class StateIndex {
+
+	/**
+	 * The id of the state with each hash, or -1 if that state isn't indexed.
+	 */
+	final int[] idOfHash = new int[Game.NUM_HASHES];
+
+	/**
+	 * The game (state) with each id.
+	 */
+	final Game[] games;
+
+	/**
+	 * If true, games are looked up by their {@link Game#canonicalHash()}
+	 */
+	final boolean symmetric;
+
+	private static StateIndex instance;
+
+	private static StateIndex symmetricInstance;
+
+	/**
+	 * Numbers {@code games} in the order given. The games must all have different
+	 * hashes.
+	 * 
+	 * @param games
+	 */
+	public StateIndex(List<Game> games) {
+		this(games, false);
+	}
+
+	/**
+	 * Numbers {@code games} in the order given. The games must all have different
+	 * hashes, and if {@code symmetric} they must all be canonical.
+	 * 
+	 * @param games
+	 * @param symmetric
+	 */
+	public StateIndex(List<Game> games, boolean symmetric) {
+		this.symmetric = symmetric;
+		this.games = games.toArray(new Game[0]);
+		Arrays.fill(idOfHash, -1);
+		for (int id = 0; id < this.games.length; id++) {
+			int hash = this.games[id].hashCode();
+			if (idOfHash[hash] != -1)
+				throw new IllegalArgumentException("Game listed twice: " + this.games[id]);
+			if (symmetric && !this.games[id].isCanonical())
+				throw new IllegalArgumentException("Game is not canonical: " + this.games[id]);
+			idOfHash[hash] = id;
+		}
+	}
+
+	/**
+	 * @return the index of all valid games where it is X's turn, and all terminal
+	 *         games. It is built on first use and shared afterwards.
+	 */
+	public static synchronized StateIndex getInstance() {
+		if (instance == null)
+			instance = new StateIndex(Game.generateAllValidGames('X'));
+
+		return instance;
+	}
+
+	/**
+	 * @return the symmetric index of the canonical forms of all valid games where
+	 *         it is X's turn, and all terminal games. It is built on first use and
+	 *         shared afterwards.
+	 */
+	public static synchronized StateIndex getSymmetricInstance() {
+		if (symmetricInstance == null) {
+			List<Game> canonical = new ArrayList<Game>();
+			for (Game g : getInstance().games)
+				if (g.isCanonical())
+					canonical.add(g);
+			symmetricInstance = new StateIndex(canonical, true);
+		}
+
+		return symmetricInstance;
+	}
+
+	/**
+	 * @return true if games share the id of their canonical form
+	 */
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	/**
+	 * @return the number of states
+	 */
+	public int size() {
+		return games.length;
+	}
+
+	/**
+	 * @param g
+	 * @return the id of {@code g}, or of its canonical form for a symmetric index;
+	 *         -1 if it isn't indexed
+	 */
+	public int id(Game g) {
+		return idOfHash[symmetric ? g.canonicalHash() : g.hashCode()];
+	}
+
+	/**
+	 * @param hash a hash according to {@link Game#hashCode()}, which must be
+	 *             canonical for a symmetric index
+	 * @return the id of the game with that hash, or -1 if it isn't indexed
+	 */
+	public int idOfHash(int hash) {
+		return idOfHash[hash];
+	}
+
+	/**
+	 * @param id
+	 * @return the game (state) with that id. It is shared, so don't change it.
+	 */
+	public Game game(int id) {
+		return games[id];
+	}
+
+}
@@ -0,0 +1,107 @@
+package ticTacToe;
+
+import java.util.Arrays;
+
+/**
+ * A max-priority queue of state ids kept in primitive arrays, used for
+ * prioritized sweeping by {@link ValueIterationAgent}. A state is in the queue
+ * at most once: offering it again only raises its priority. Equal priorities
+ * come out lowest id first, so the order is deterministic.
+ *
+ */
+class StatePriorityQueue {
+
+	private final int[] heap;
+
+	/**
+	 * The position of each state in {@link #heap}, or -1 if it isn't queued
+	 */
+	private final int[] position;
+
+	private final double[] priority;
+
+	private int size = 0;
+
+	StatePriorityQueue(int numStates) {
+		heap = new int[numStates];
+		position = new int[numStates];
+		priority = new double[numStates];
+		Arrays.fill(position, -1);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Queues state {@code s} with priority {@code p}, or raises its priority to
+	 * {@code p} if it is already queued with a lower one.
+	 */
+	void offer(int s, double p) {
+		if (position[s] == -1) {
+			heap[size] = s;
+			position[s] = size;
+			priority[s] = p;
+			siftUp(size++);
+		} else if (p > priority[s]) {
+			priority[s] = p;
+			siftUp(position[s]);
+		}
+	}
+
+	/**
+	 * Removes and returns the state with the highest priority.
+	 */
+	int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private boolean before(int s1, int s2) {
+		return priority[s1] > priority[s2] || (priority[s1] == priority[s2] && s1 < s2);
+	}
+
+	private void siftUp(int i) {
+		int s = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(s, heap[parent]))
+				break;
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = s;
+		position[s] = i;
+	}
+
+	private void siftDown(int i) {
+		int s = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && before(heap[child + 1], heap[child]))
+				child++;
+			if (!before(heap[child], s))
+				break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = s;
+		position[s] = i;
+	}
+
+}
@@ -0,0 +1,59 @@
+package ticTacToe;
+
+/**
+ * Statistics of one sweep over the states of a planning agent, e.g. one value
+ * iteration step of {@link ValueIterationAgent}.
+ *
+ */
+public class SweepStats {
+
+	/**
+	 * The Bellman residual: the maximum absolute change in the value of any state
+	 */
+	public final double residual;
+
+	/**
+	 * The number of states whose value changed
+	 */
+	public final int statesUpdated;
+
+	/**
+	 * The number of Bellman backups (maximisations over the moves of a state)
+	 * computed
+	 */
+	public final long backups;
+
+	/**
+	 * The wall-clock time the sweep took, in nanoseconds
+	 */
+	public final long nanos;
+
+	public SweepStats(double residual, int statesUpdated, long backups, long nanos) {
+		this.residual = residual;
+		this.statesUpdated = statesUpdated;
+		this.backups = backups;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * @return the statistics of two parts of the same sweep taken together. The
+	 *         time is that of the longer part.
+	 */
+	public SweepStats merge(SweepStats other) {
+		return new SweepStats(Math.max(residual, other.residual), statesUpdated + other.statesUpdated,
+				backups + other.backups, Math.max(nanos, other.nanos));
+	}
+
+	/**
+	 * @return the same statistics with the time set to {@code nanos}
+	 */
+	public SweepStats withNanos(long nanos) {
+		return new SweepStats(residual, statesUpdated, backups, nanos);
+	}
+
+	public String toString() {
+		return "residual=" + residual + " statesUpdated=" + statesUpdated + " backups=" + backups + " time="
+				+ (nanos / 1000) + "us";
+	}
+
+}
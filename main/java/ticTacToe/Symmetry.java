@@ -0,0 +1,120 @@
+package ticTacToe;
+
+/**
+ * The 8 symmetries of the Tic Tac Toe board (the dihedral group D4): the 4
+ * rotations and the 4 reflections. Symmetric positions have the same value and
+ * symmetric best moves, so agents can store one of them, the canonical one, for
+ * all 8.
+ * 
+ * A symmetry is numbered 0..7, 0 being the identity. It maps cell {@code c}
+ * (3*x+y) of a board to cell {@link #apply(int, int)} of the transformed board.
+ * The canonical form of a game is the transformed game with the smallest
+ * {@link Game#hashCode()}, see {@link Game#canonicalTransform()}.
+ *
+ */
+public final class Symmetry {
+
+	public static final int COUNT = 8;
+
+	public static final int IDENTITY = 0;
+
+	/**
+	 * CELL[t][c] is the cell that cell c is moved to by symmetry t
+	 */
+	static final int[][] CELL = new int[COUNT][9];
+
+	/**
+	 * INVERSE_CELL[t][c] is the cell that symmetry t moves to cell c
+	 */
+	static final int[][] INVERSE_CELL = new int[COUNT][9];
+
+	/**
+	 * MASK[t][m] is the 9-bit mask m transformed by symmetry t
+	 */
+	static final int[][] MASK = new int[COUNT][Game.FULL_BOARD + 1];
+
+	static {
+		for (int t = 0; t < COUNT; t++) {
+			for (int c = 0; c < 9; c++) {
+				int x = c / 3;
+				int y = c % 3;
+				int tx, ty;
+				switch (t) {
+				case 0: // identity
+					tx = x;
+					ty = y;
+					break;
+				case 1: // rotate 90 degrees
+					tx = y;
+					ty = 2 - x;
+					break;
+				case 2: // rotate 180 degrees
+					tx = 2 - x;
+					ty = 2 - y;
+					break;
+				case 3: // rotate 270 degrees
+					tx = 2 - y;
+					ty = x;
+					break;
+				case 4: // flip top to bottom
+					tx = 2 - x;
+					ty = y;
+					break;
+				case 5: // flip left to right
+					tx = x;
+					ty = 2 - y;
+					break;
+				case 6: // transpose
+					tx = y;
+					ty = x;
+					break;
+				default: // transpose along the other diagonal
+					tx = 2 - y;
+					ty = 2 - x;
+				}
+				CELL[t][c] = 3 * tx + ty;
+				INVERSE_CELL[t][3 * tx + ty] = c;
+			}
+			for (int m = 0; m <= Game.FULL_BOARD; m++)
+				for (int c = 0; c < 9; c++)
+					if ((m & (1 << c)) != 0)
+						MASK[t][m] |= 1 << CELL[t][c];
+		}
+	}
+
+	private Symmetry() {
+	}
+
+	/**
+	 * @return the cell that symmetry {@code t} moves {@code cell} to
+	 */
+	public static int apply(int t, int cell) {
+		return CELL[t][cell];
+	}
+
+	/**
+	 * @return the cell that symmetry {@code t} moves to {@code cell}, i.e. the
+	 *         inverse of {@link #apply(int, int)}
+	 */
+	public static int invert(int t, int cell) {
+		return INVERSE_CELL[t][cell];
+	}
+
+	/**
+	 * @return move {@code m} transformed by symmetry {@code t}, by the same player
+	 */
+	public static Move apply(int t, Move m) {
+		int cell = CELL[t][m.cell()];
+		return Move.of(m.who, cell);
+	}
+
+	/**
+	 * @return the move that symmetry {@code t} transforms into {@code m}, by the
+	 *         same player
+	 */
+	public static Move invert(int t, Move m) {
+		int cell = INVERSE_CELL[t][m.cell()];
+		return Move.of(m.who, cell);
+	}
+
+}
@@ -0,0 +1,217 @@
+package ticTacToe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games between two agents, silently and in parallel, and
+ * aggregates the results. Use it instead of looping over
+ * {@link Game#playOut()}, which prints every move.
+ *
+ * The agents are shared by all threads, so their {@link Agent#getMove(Game)}
+ * must be safe to call concurrently. The provided agents are: their policies
+ * are read-only once trained, and the random ones draw from
+ * {@link Policy#random()}, a generator per thread. Before each game that
+ * generator is reseeded from the tournament seed and the number of the game,
+ * so the results only depend on the seed, not on the number of threads or how
+ * the games were scheduled.
+ *
+ */
+public class Tournament {
+
+	/**
+	 * The results of a tournament: how often X won, O won or the game was drawn,
+	 * from X's point of view, and how long it took.
+	 */
+	public static class Result {
+
+		public final int xWon;
+		public final int oWon;
+		public final int draws;
+		public final long nanos;
+
+		Result(int xWon, int oWon, int draws, long nanos) {
+			this.xWon = xWon;
+			this.oWon = oWon;
+			this.draws = draws;
+			this.nanos = nanos;
+		}
+
+		public int games() {
+			return xWon + oWon + draws;
+		}
+
+		public double winRate() {
+			return (double) xWon / games();
+		}
+
+		public double lossRate() {
+			return (double) oWon / games();
+		}
+
+		public double drawRate() {
+			return (double) draws / games();
+		}
+
+		/**
+		 * @return the 95% Wilson score interval {lower, upper} of X's win rate
+		 */
+		public double[] winInterval() {
+			return wilson(xWon, games());
+		}
+
+		/**
+		 * @return the 95% Wilson score interval {lower, upper} of X's loss rate
+		 */
+		public double[] lossInterval() {
+			return wilson(oWon, games());
+		}
+
+		/**
+		 * @return the 95% Wilson score interval {lower, upper} of the draw rate
+		 */
+		public double[] drawInterval() {
+			return wilson(draws, games());
+		}
+
+		public double gamesPerSecond() {
+			return games() / (nanos / 1e9);
+		}
+
+		public String toString() {
+			return String.format("Wins: %d Losses: %d Draws: %d (win %s, loss %s, draw %s) %,.0f games/s", xWon, oWon,
+					draws, percent(winRate(), winInterval()), percent(lossRate(), lossInterval()),
+					percent(drawRate(), drawInterval()), gamesPerSecond());
+		}
+
+		private static String percent(double rate, double[] interval) {
+			return String.format("%.1f%% [%.1f, %.1f]", 100 * rate, 100 * interval[0], 100 * interval[1]);
+		}
+	}
+
+	/**
+	 * z for a 95% confidence interval
+	 */
+	static final double Z95 = 1.959963984540054;
+
+	/**
+	 * @return the Wilson score interval of a proportion of {@code successes} in
+	 *         {@code trials}, at 95% confidence
+	 */
+	static double[] wilson(int successes, int trials) {
+		if (trials == 0)
+			return new double[] { 0, 1 };
+		double p = (double) successes / trials;
+		double z2 = Z95 * Z95;
+		double centre = (p + z2 / (2 * trials)) / (1 + z2 / trials);
+		double halfWidth = Z95 / (1 + z2 / trials) * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials));
+		return new double[] { Math.max(0, centre - halfWidth), Math.min(1, centre + halfWidth) };
+	}
+
+	/**
+	 * Plays {@code games} games of {@code x} against {@code o}, X starting every
+	 * game, on all available processors.
+	 *
+	 * @param x
+	 * @param o
+	 * @param games
+	 * @param seed
+	 * @return the results
+	 * @throws IllegalMoveException if an agent plays an illegal move
+	 */
+	public static Result play(Agent x, Agent o, int games, long seed) throws IllegalMoveException {
+		return play(x, o, games, seed, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Plays {@code games} games of {@code x} against {@code o}, X starting every
+	 * game, on {@code threads} threads.
+	 *
+	 * @param x
+	 * @param o
+	 * @param games
+	 * @param seed
+	 * @param threads
+	 * @return the results
+	 * @throws IllegalMoveException if an agent plays an illegal move
+	 */
+	public static Result play(Agent x, Agent o, int games, long seed, int threads) throws IllegalMoveException {
+		if (threads < 1)
+			throw new IllegalArgumentException("Need at least one thread");
+
+		long start = System.nanoTime();
+		int[] counts = new int[4];
+		if (threads == 1) {
+			playRange(x, o, 0, games, seed, counts);
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+				for (int t = 0; t < threads; t++) {
+					final int from = (int) ((long) games * t / threads);
+					final int to = (int) ((long) games * (t + 1) / threads);
+					results.add(pool.submit(() -> playRange(x, o, from, to, seed, new int[4])));
+				}
+				for (Future<int[]> result : results) {
+					int[] c = result.get();
+					for (int s = 0; s < counts.length; s++)
+						counts[s] += c[s];
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted during the tournament", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IllegalMoveException)
+					throw (IllegalMoveException) e.getCause();
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw new IllegalStateException(e.getCause());
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		return new Result(counts[Game.X_WON], counts[Game.O_WON], counts[Game.DRAW], System.nanoTime() - start);
+	}
+
+	/**
+	 * Plays games {@code from} to {@code to}-1 in the current thread.
+	 *
+	 * @param counts receives the number of games ending in each state, indexed by
+	 *               state
+	 * @return counts
+	 */
+	private static int[] playRange(Agent x, Agent o, int from, int to, long seed, int[] counts)
+			throws IllegalMoveException {
+		// the thread's own generator is left as it was
+		Random saved = Policy.RANDOM.get();
+		Random random = new Random();
+		Policy.RANDOM.set(random);
+		try {
+			for (int i = from; i < to; i++) {
+				random.setSeed(mix(seed + i));
+				counts[new Game(x, o, x).playOut(false)]++;
+			}
+		} finally {
+			Policy.RANDOM.set(saved);
+		}
+		return counts;
+	}
+
+	/**
+	 * Scrambles consecutive game seeds into unrelated ones (the SplitMix64
+	 * finalizer)
+	 */
+	static long mix(long z) {
+		z *= 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -1,254 +1,646 @@
-package ticTacToe;
-
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-/**
- * A Value Iteration Agent, only very partially implemented. The methods to implement are: 
- * (1) {@link ValueIterationAgent#iterate}
- * (2) {@link ValueIterationAgent#extractPolicy}
- * 
- * You may also want/need to edit {@link ValueIterationAgent#train} - feel free to do this, but you probably won't need to.
- * @author ae187
- *
- */
-public class ValueIterationAgent extends Agent {
-
-	/**
-	 * This map is used to store the values of states
-	 */
-	Map<Game, Double> valueFunction=new HashMap<Game, Double>();
-	
-	/**
-	 * the discount factor
-	 */
-	double discount=0.9;
-	
-	/**
-	 * the MDP model
-	 */
-	TTTMDP mdp=new TTTMDP();
-	
-	/**
-	 * the number of iterations to perform - feel free to change this/try out different numbers of iterations
-	 */
-	int k=10;
-	
-	
-	/**
-	 * This constructor trains the agent offline first and sets its policy
-	 */
-	public ValueIterationAgent()
-	{
-		super();
-		mdp=new TTTMDP();
-		this.discount=0.9;
-		initValues();
-		train();
-	}
-	
-	
-	/**
-	 * Use this constructor to initialise your agent with an existing policy
-	 * @param p
-	 */
-	public ValueIterationAgent(Policy p) {
-		super(p);
-		this.policy = p; 
-		
-	}
-
-	public ValueIterationAgent(double discountFactor) {
-		
-		this.discount=discountFactor;
-		mdp=new TTTMDP();
-		initValues();
-		train();
-	}
-	
-	/**
-	 * Initialises the {@link ValueIterationAgent#valueFunction} map, and sets the initial value of all states to 0 
-	 * (V0 from the lectures). Uses {@link Game#inverseHash} and {@link Game#generateAllValidGames(char)} to do this. 
-	 * 
-	 */
-	public void initValues()
-	{
-		
-		List<Game> allGames=Game.generateAllValidGames('X');//all valid games where it is X's turn, or it's terminal.
-		for(Game g: allGames)
-			this.valueFunction.put(g, 0.0);
-		
-		
-		
-	}
-	
-	
-	
-	public ValueIterationAgent(double discountFactor, double winReward, double loseReward, double livingReward, double drawReward)
-	{
-		this.discount=discountFactor;
-		mdp=new TTTMDP(winReward, loseReward, livingReward, drawReward);
-	}
-	
-	/**
-	 
-	
-	/*
-	 * Performs {@link #k} value iteration steps. After running this method, the {@link ValueIterationAgent#valueFunction} map should contain
-	 * the (current) values of each reachable state. You should use the {@link TTTMDP} provided to do this.
-	 * 
-	 * This function updates values based on Bellman Ford Equation
-	 *
-	 */
-	public void iterate()
-	{		
-//		V(s)=max_a sum_target=[T(s,a,target) * (R+gamma*V(target) )]	
-		double sum = 0.0;
-		List<Double> stateValues = new ArrayList<Double>();	
-		
-		//iterate k times
-		for(int i = 0 ; i < k ; i++)	{
-			//for each game state 
-			for(Game g : valueFunction.keySet())	{
-				if(g.isTerminal())	{
-					valueFunction.put(g, 0.0);
-					continue;
-				}
-				
-				//Maximum q value
-				double maxQValue = Double.NEGATIVE_INFINITY;
-				
-//				For each possible move in the game state
-		            for (Move move : g.getPossibleMoves()) {
-		                double qValue = calculateQValue(g, move);
-		                List<TransitionProb> transitions = mdp.generateTransitions(g, move);
-		        	    //For all transitions from current state g and Move m
-		        	    for (TransitionProb transition : transitions) {
-		        	        sum += transition.prob * (transition.outcome.localReward + (discount * valueFunction.get(transition.outcome.sPrime)));
-		        	    }
-		        	
-//		        	    If qValue is greater than maxQValue, assign maxQValue as qValue
-		                if(qValue>maxQValue) {
-		                	maxQValue=qValue;
-		                }
-//		                maxQValue = Math.max(maxQValue, qValue);
-		            }
-//		            Update the valueFunction with maXQValue
-		            valueFunction.put(g, maxQValue);
-		        }
-		        valueFunction.putAll(valueFunction);
-		}
-	}
-	
-	
-		/* YOUR CODE HERE
-		 */
-
-	
-//	HElper functionn that calculates Q-Value for a given state and move using Bellman Equation
-	private double calculateQValue(Game state, Move move) {
-	    double sum = 0.0;
-	    List<TransitionProb> transitions = mdp.generateTransitions(state, move);
-//		For all transitions possible, calculate sum using transition probabilities, discount factor & valueFunction
-	    for (TransitionProb transition : transitions) {
-	        sum += transition.prob * (transition.outcome.localReward + (discount * valueFunction.get(transition.outcome.sPrime)));
-	    }
-
-	    return sum;
-	}
-	
-	
-	
-	/**This method should be run AFTER the train method to extract a policy according to {@link ValueIterationAgent#valueFunction}
-	 * You will need to do a single step of expectimax from each game (state) key in {@link ValueIterationAgent#valueFunction} 
-	 * to extract a policy.
-	 * 
-	 * @return the policy according to {@link ValueIterationAgent#valueFunction}
-	 */
-	public Policy extractPolicy()
-	{
-		/*
-		 * YOUR CODE HERE
-		 */
-
-		Set<Game> states = valueFunction.keySet();
-		Policy p = new Policy();
-
-		
-		for(Game g : states) 
-//			If gameState is a terminal, continue ahead
-		{
-			if(g.isTerminal())		{
-				continue;
-				}
-			List<Double> stateValues = new ArrayList<Double>();
-//			For each possible moves in the game state
-			for(Move m : g.getPossibleMoves())	{
-				double sum = 0.0;
-				List<TransitionProb> probs = mdp.generateTransitions(g, m);
-//				For each transitions possible  in the current state
-				for(int j = 0; j < probs.size(); j++)	{
-					sum = sum + (probs.get(j).prob * (probs.get(j).outcome.localReward + (discount * valueFunction.get(probs.get(j).outcome.sPrime))));
-					}
-				stateValues.add(sum);
-//				Select move with max reward
-				if(sum == Collections.max(stateValues)) {
-					p.policy.put(g, m);
-				}
-			}
-				stateValues.clear();
-		}
-		return p;
-	}
-	
-	/**
-	 * This method solves the mdp using your implementation of {@link ValueIterationAgent#extractPolicy} and
-	 * {@link ValueIterationAgent#iterate}. 
-	 */
-	public void train()
-	{
-		/**
-		 * First run value iteration
-		 */
-		this.iterate();
-		/**
-		 * now extract policy from the values in {@link ValueIterationAgent#valueFunction} and set the agent's policy 
-		 *  
-		 */
-		
-		super.policy=extractPolicy();
-		
-		if (this.policy==null)
-		{
-			System.out.println("Unimplemented methods! First implement the iterate() & extractPolicy() methods");
-			//System.exit(1);
-		}
-		
-		
-		
-	}
-
-	
-	public static void main(String a[]) throws IllegalMoveException
-	{
-		//Test method to play the agent against a human agent.
-		ValueIterationAgent agent=new ValueIterationAgent();
-		
-		HumanAgent d=new HumanAgent();
-		
-		Game g=new Game(agent, d, d);
-		g.playOut();
-
-		
-
-	
-    }
-
-   	
-	
-}
+package ticTacToe;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A Value Iteration Agent, only very partially implemented. The methods to implement are: 
+ * (1) {@link ValueIterationAgent#iterate}
+ * (2) {@link ValueIterationAgent#extractPolicy}
+ * 
+ * You may also want/need to edit {@link ValueIterationAgent#train} - feel free to do this, but you probably won't need to.
+ * @author ae187
+ *
+ */
+public class ValueIterationAgent extends Agent {
+
+	/**
+	 * The states, numbered densely. See {@link StateIndex}.
+	 */
+	StateIndex states;
+	
+	/**
+	 * This array is used to store the values of states, indexed by their id in {@link #states}
+	 */
+	double[] valueFunction;
+	
+	/**
+	 * the discount factor
+	 */
+	double discount=0.9;
+	
+	/**
+	 * the MDP model
+	 */
+	TTTMDP mdp=new TTTMDP();
+	
+	/**
+	 * The compiled form of {@link #mdp}, fetched at the start of {@link #iterate()} and {@link #extractPolicy()}
+	 */
+	CompiledMDP model;
+	
+	/**
+	 * If true, values are kept for canonical states only (see {@link StateIndex#getSymmetricInstance()}), about 8 times 
+	 * fewer, and the extracted policy is a symmetric {@link Policy}.
+	 */
+	boolean symmetric=false;
+	
+	/**
+	 * the maximum number of iterations (sweeps) to perform, or 0 for no limit. Iteration normally stops earlier, 
+	 * as soon as the values have converged, see {@link #epsilon}.
+	 */
+	int k=10;
+	
+	/**
+	 * Value iteration stops once the Bellman residual of a sweep is at most epsilon.
+	 */
+	double epsilon=1e-9;
+	
+	/**
+	 * The order in which {@link #iterate()} backs up states.
+	 */
+	public enum Schedule {
+		/**
+		 * Synchronous sweeps over all states: every sweep reads only the values of the previous one. This is the only
+		 * schedule that can use several {@link ValueIterationAgent#threads}.
+		 */
+		JACOBI,
+		/**
+		 * In-place sweeps over all states in id order: each backup sees the values already updated in the same sweep.
+		 */
+		GAUSS_SEIDEL,
+		/**
+		 * Prioritized sweeping: after one pass to compute every state's Bellman error, states are backed up in order
+		 * of decreasing error from a priority queue, and each backup re-queues the predecessors of the state whose
+		 * value changed.
+		 */
+		PRIORITIZED,
+		/**
+		 * A single in-place pass in reverse move-count order, so that every state is backed up after all of its
+		 * successors. The game is acyclic, so this gives the converged values directly.
+		 */
+		TOPOLOGICAL
+	}
+	
+	/**
+	 * The update schedule used by {@link #iterate()}
+	 */
+	Schedule schedule=Schedule.JACOBI;
+	
+	/**
+	 * The number of threads used by {@link #iterate()} with the {@link Schedule#JACOBI} schedule. With 1 the sweeps run 
+	 * sequentially in the calling thread, otherwise each sweep is partitioned across a {@link ForkJoinPool} of this 
+	 * many threads. Both give bit-identical values.
+	 */
+	int threads=1;
+	
+	/**
+	 * The statistics of each sweep of the last {@link #iterate()}. With the {@link Schedule#PRIORITIZED} schedule,
+	 * the first entry is the pass that computes the initial priorities and the second covers all backups from the queue.
+	 */
+	List<SweepStats> sweepStats=new ArrayList<SweepStats>();
+	
+	/**
+	 * Where the values are checkpointed during {@link #iterate()}, or null, see {@link #setCheckpoint(String, int)}
+	 */
+	Checkpoint checkpoint;
+	
+	/**
+	 * The number of sweeps between checkpoints
+	 */
+	int checkpointInterval;
+	
+	/**
+	 * The number of sweeps done up to the last checkpoint of earlier runs, which the sweeps of the current 
+	 * {@link #iterate()} are counted on from
+	 */
+	long checkpointSweeps;
+	
+	/**
+	 * Sweeps over fewer states than this are not split further between threads.
+	 */
+	static final int SWEEP_GRAIN=512;
+	
+	
+	/**
+	 * This constructor trains the agent offline first and sets its policy
+	 */
+	public ValueIterationAgent()
+	{
+		super();
+		mdp=new TTTMDP();
+		this.discount=0.9;
+		initValues();
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+	
+	
+	/**
+	 * Use this constructor to initialise your agent with an existing policy
+	 * @param p
+	 */
+	public ValueIterationAgent(Policy p) {
+		super(p);
+		this.policy = p; 
+		
+	}
+
+	public ValueIterationAgent(double discountFactor) {
+		
+		this.discount=discountFactor;
+		mdp=new TTTMDP();
+		initValues();
+		if (!loadCachedPolicy())
+		{
+			train();
+			savePolicyToFile();
+		}
+	}
+	
+	/**
+	 * Initialises the {@link ValueIterationAgent#valueFunction} array, and sets the initial value of all states to 0 
+	 * (V0 from the lectures). The states are all valid games where it is X's turn, or it's terminal, as numbered by {@link #states}. 
+	 * 
+	 */
+	public void initValues()
+	{
+		
+		this.states=symmetric ? StateIndex.getSymmetricInstance() : StateIndex.getInstance();
+		this.valueFunction=new double[states.size()];
+		
+		
+		
+	}
+	
+	
+	
+	public ValueIterationAgent(double discountFactor, double winReward, double loseReward, double livingReward, double drawReward)
+	{
+		this.discount=discountFactor;
+		mdp=new TTTMDP(winReward, loseReward, livingReward, drawReward);
+	}
+	
+	/**
+	 
+	
+	/*
+	 * Performs value iteration steps until the values converge to within {@link #epsilon}, or {@link #k} steps have been
+	 * done. After running this method, the {@link ValueIterationAgent#valueFunction} array should contain
+	 * the (current) values of each reachable state. You should use the {@link TTTMDP} provided to do this; its
+	 * transitions are swept in compiled form, see {@link TTTMDP#getCompiledModel()}.
+	 * 
+	 * This function updates values based on Bellman Ford Equation, in the order given by {@link #schedule}.
+	 *
+	 */
+	public void iterate()
+	{		
+//		V(s)=max_a sum_target=[T(s,a,target) * (R+gamma*V(target) )]	
+		model = mdp.getCompiledModel(symmetric);
+		sweepStats = new ArrayList<SweepStats>();
+		
+		switch (schedule) {
+		case GAUSS_SEIDEL:
+			iterateInPlace(false);
+			break;
+		case TOPOLOGICAL:
+			iterateInPlace(true);
+			break;
+		case PRIORITIZED:
+			iteratePrioritized();
+			break;
+		default:
+			iterateJacobi();
+		}
+		
+		if (checkpoint != null) {
+			checkpointSweeps += sweepStats.size();
+			checkpoint.save(valueFunction, null, checkpointSweeps);
+			checkpoint.flush();
+		}
+	}
+	
+	/**
+	 * Snapshots the values after {@code sweeps} sweeps of the current {@link #iterate()}, if a checkpoint is due
+	 */
+	private void checkpoint(int sweeps)
+	{
+		if (checkpoint != null && sweeps % checkpointInterval == 0)
+			checkpoint.save(valueFunction, null, checkpointSweeps + sweeps);
+	}
+	
+	/**
+	 * Checkpoints the values to {@code file} every {@code interval} sweeps of {@link #iterate()}, and when it is done, 
+	 * see {@link Checkpoint}. If {@code file} holds a checkpoint already, the values are restored from it, so the next 
+	 * call to {@link #train()} resumes from there. Call this after {@link #setSymmetric(boolean)}, which resets the values.
+	 * The values are initialised first (see {@link #initValues()}) if they haven't been yet.
+	 * @param file
+	 * @param interval
+	 * @throws IOException if the file can't be used, e.g. because it holds the values of another state space
+	 */
+	public void setCheckpoint(String file, int interval) throws IOException
+	{
+		if (interval < 1)
+			throw new IllegalArgumentException("The interval must be positive");
+		if (valueFunction == null)
+			initValues();
+		this.checkpoint = new Checkpoint(file, valueFunction.length, 0);
+		this.checkpointInterval = interval;
+		this.checkpointSweeps = Math.max(0, checkpoint.restore(valueFunction, null));
+	}
+	
+	/**
+	 * Synchronous (Jacobi) value iteration, see {@link Schedule#JACOBI}
+	 */
+	private void iterateJacobi()
+	{
+		// the values of the previous sweep are read from valueFunction while the new ones are written into next,
+		// so every state's update is independent of the order states are swept in (and of the threads).
+		double[] next = new double[valueFunction.length];
+		ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		try {
+			//iterate until converged, at most k times
+			for(int i = 0 ; k <= 0 || i < k ; i++)	{
+				long start = System.nanoTime();
+				SweepStats stats;
+				if (pool == null)
+					stats = sweep(0, model.numStates(), next);
+				else
+					stats = pool.invoke(new SweepTask(0, model.numStates(), next));
+				sweepStats.add(stats.withNanos(System.nanoTime() - start));
+				
+				double[] previous = valueFunction;
+				valueFunction = next;
+				next = previous;
+				checkpoint(i + 1);
+				
+				if (stats.residual <= epsilon)
+					break;
+			}
+		}
+		finally {
+			if (pool != null)
+				pool.shutdown();
+		}
+	}
+	
+	/**
+	 * In-place value iteration, in id order ({@link Schedule#GAUSS_SEIDEL}) or in a single pass in topological order 
+	 * ({@link Schedule#TOPOLOGICAL}).
+	 */
+	private void iterateInPlace(boolean topological)
+	{
+		for(int i = 0 ; k <= 0 || i < k ; i++)	{
+			long start = System.nanoTime();
+			double residual = 0.0;
+			int updated = 0;
+			long backups = 0;
+			for(int j = 0 ; j < model.numStates() ; j++)	{
+				int s = topological ? model.topological(j) : j;
+				if (model.isTerminal(s))
+					continue;
+				double value = backup(s);
+				backups++;
+				double change = Math.abs(value - valueFunction[s]);
+				valueFunction[s] = value;
+				if (change > 0) {
+					updated++;
+					residual = Math.max(residual, change);
+				}
+			}
+			sweepStats.add(new SweepStats(residual, updated, backups, System.nanoTime() - start));
+			checkpoint(i + 1);
+			
+			if (topological || residual <= epsilon)
+				break;
+		}
+	}
+	
+	/**
+	 * Prioritized sweeping, see {@link Schedule#PRIORITIZED}. States whose Bellman error is at most {@link #epsilon} are
+	 * not queued. {@link #k} caps the number of backups from the queue at k times the number of states.
+	 */
+	private void iteratePrioritized()
+	{
+		StatePriorityQueue queue = new StatePriorityQueue(model.numStates());
+		
+		long start = System.nanoTime();
+		double maxError = 0.0;
+		long backups = 0;
+		for(int s = 0 ; s < model.numStates() ; s++)	{
+			if (model.isTerminal(s))
+				continue;
+			double error = Math.abs(backup(s) - valueFunction[s]);
+			backups++;
+			if (error > epsilon)
+				queue.offer(s, error);
+			maxError = Math.max(maxError, error);
+		}
+		sweepStats.add(new SweepStats(maxError, 0, backups, System.nanoTime() - start));
+		
+		start = System.nanoTime();
+		double residual = 0.0;
+		int updated = 0;
+		backups = 0;
+		long maxUpdates = k <= 0 ? Long.MAX_VALUE : (long) k * model.numStates();
+		while (!queue.isEmpty() && updated < maxUpdates) {
+			int s = queue.poll();
+			double value = backup(s);
+			backups++;
+			double change = Math.abs(value - valueFunction[s]);
+			valueFunction[s] = value;
+			if (change == 0)
+				continue;
+			updated++;
+			residual = Math.max(residual, change);
+			
+			// the states that can reach s now have a stale value
+			for (int i = model.firstPredecessor(s); i < model.endPredecessor(s); i++) {
+				int p = model.predecessor(i);
+				double error = Math.abs(backup(p) - valueFunction[p]);
+				backups++;
+				if (error > epsilon)
+					queue.offer(p, error);
+			}
+		}
+		sweepStats.add(new SweepStats(residual, updated, backups, System.nanoTime() - start));
+	}
+	
+	/**
+	 * @return the Bellman backup of state {@code s} from the current {@link #valueFunction}: the maximum q-value over 
+	 * its moves, or 0 if it is terminal
+	 */
+	private double backup(int s)
+	{
+		if (model.isTerminal(s))
+			return 0.0;
+		
+		//Maximum q value
+		double value = Double.NEGATIVE_INFINITY;
+//		For each possible move in the game state
+		for (int a = model.firstAction(s); a < model.endAction(s); a++) {
+			double qValue = calculateQValue(a);
+//			If qValue is greater than maxQValue, assign maxQValue as qValue
+			if(qValue>value) {
+				value=qValue;
+			}
+		}
+		return value;
+	}
+	
+	/**
+	 * Performs one value iteration step for the states with ids {@code from} to {@code to}-1, reading values from 
+	 * {@link #valueFunction} and writing the new ones into {@code next}.
+	 * 
+	 * @return the residual, number of states updated and backups over these states
+	 */
+	SweepStats sweep(int from, int to, double[] next)
+	{
+		double residual = 0.0;
+		int updated = 0;
+		long backups = 0;
+		//for each game state 
+		for(int s = from ; s < to ; s++)	{
+			double value = backup(s);
+			if (!model.isTerminal(s))
+				backups++;
+//			Store maXQValue as the state's new value
+			next[s] = value;
+			double change = Math.abs(value - valueFunction[s]);
+			if (change > 0) {
+				updated++;
+				residual = Math.max(residual, change);
+			}
+		}
+		return new SweepStats(residual, updated, backups, 0);
+	}
+	
+	/**
+	 * One sweep over a range of states, split in halves until they are smaller than {@link #SWEEP_GRAIN}.
+	 * Returns the residual over the range.
+	 */
+	private class SweepTask extends RecursiveTask<SweepStats>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		final int from;
+		final int to;
+		final double[] next;
+		
+		SweepTask(int from, int to, double[] next)
+		{
+			this.from=from;
+			this.to=to;
+			this.next=next;
+		}
+		
+		@Override
+		protected SweepStats compute()
+		{
+			if (to - from <= SWEEP_GRAIN)
+				return sweep(from, to, next);
+			
+			int mid = (from + to) >>> 1;
+			SweepTask left = new SweepTask(from, mid, next);
+			left.fork();
+			SweepStats right = new SweepTask(mid, to, next).compute();
+			return left.join().merge(right);
+		}
+	}
+	
+	/**
+	 * Sets the update schedule of {@link #iterate()}. Takes effect on the next call to {@link #train()}.
+	 * @param schedule
+	 */
+	public void setSchedule(Schedule schedule)
+	{
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * @return the number of sweeps performed by the last {@link #iterate()}
+	 */
+	public int getSweeps()
+	{
+		return sweepStats.size();
+	}
+	
+	/**
+	 * @return the number of Bellman backups computed by the last {@link #iterate()}
+	 */
+	public long getBackups()
+	{
+		long backups = 0;
+		for (SweepStats stats : sweepStats)
+			backups += stats.backups;
+		return backups;
+	}
+	
+	/**
+	 * Switches between the full and the symmetry-reduced state space, see {@link #symmetric}. This resets the values 
+	 * (see {@link #initValues()}), and takes effect on the next call to {@link #train()}.
+	 * @param symmetric
+	 */
+	public void setSymmetric(boolean symmetric)
+	{
+		this.symmetric = symmetric;
+		initValues();
+	}
+	
+	/**
+	 * Sets the number of threads used by {@link #iterate()}, see {@link #threads}. Takes effect on the next call to {@link #train()}.
+	 * @param threads
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("Need at least one thread");
+		this.threads = threads;
+	}
+	
+	/**
+	 * Sets the convergence threshold and the maximum number of sweeps of {@link #iterate()}. Takes effect on the 
+	 * next call to {@link #train()}.
+	 * @param epsilon iteration stops once the Bellman residual of a sweep is at most this
+	 * @param maxSweeps the maximum number of sweeps, or 0 for no limit
+	 */
+	public void setConvergence(double epsilon, int maxSweeps)
+	{
+		this.epsilon = epsilon;
+		this.k = maxSweeps;
+	}
+	
+	/**
+	 * @return the statistics of each sweep of the last {@link #iterate()}
+	 */
+	public List<SweepStats> getSweepStats()
+	{
+		return new ArrayList<SweepStats>(sweepStats);
+	}
+	
+	/**
+	 * @return the Bellman residual of each sweep of the last {@link #iterate()}
+	 */
+	public double[] getResiduals()
+	{
+		double[] residuals = new double[sweepStats.size()];
+		for (int i = 0; i < residuals.length; i++)
+			residuals[i] = sweepStats.get(i).residual;
+		return residuals;
+	}
+	
+	
+		/* YOUR CODE HERE
+		 */
+
+	
+//	HElper functionn that calculates Q-Value for a given action of the compiled model using Bellman Equation
+	private double calculateQValue(int action) {
+//		For all transitions possible, calculate sum using transition probabilities, discount factor & valueFunction
+	    return model.qValue(action, valueFunction, discount);
+	}
+	
+	
+	
+	/**
+	 * @return the cache file of the policy of this agent's MDP and discount, see {@link Agent#POLICY_CACHE_PROPERTY}
+	 */
+	protected String policyFile()
+	{
+		return cacheFile("ValueIterationAgent", discount, mdp.winReward, mdp.loseReward, mdp.livingReward, mdp.drawReward);
+	}
+	
+	
+	/**This method should be run AFTER the train method to extract a policy according to {@link ValueIterationAgent#valueFunction}
+	 * You will need to do a single step of expectimax from each game (state) key in {@link ValueIterationAgent#valueFunction} 
+	 * to extract a policy.
+	 * 
+	 * @return the policy according to {@link ValueIterationAgent#valueFunction}
+	 */
+	public Policy extractPolicy()
+	{
+		/*
+		 * YOUR CODE HERE
+		 */
+
+		Policy p = new Policy(new HashMap<Game, Move>(), symmetric);
+		model = mdp.getCompiledModel(symmetric);
+
+		
+		for(int s = 0; s < model.numStates(); s++) 
+//			If gameState is a terminal, continue ahead
+		{
+			if(model.isTerminal(s))		{
+				continue;
+				}
+			double maxSum = Double.NEGATIVE_INFINITY;
+			int bestCell = -1;
+//			For each possible moves in the game state
+			for(int a = model.firstAction(s); a < model.endAction(s); a++)	{
+				double sum = calculateQValue(a);
+//				Select move with max reward, the last one on ties
+				if(sum >= maxSum) {
+					maxSum = sum;
+					bestCell = model.cell(a);
+				}
+			}
+			Game g = states.game(s);
+			p.policy.put(g, Move.of(g.whoseTurn, bestCell));
+		}
+		return p;
+	}
+	
+	/**
+	 * This method solves the mdp using your implementation of {@link ValueIterationAgent#extractPolicy} and
+	 * {@link ValueIterationAgent#iterate}. 
+	 */
+	public void train()
+	{
+		/**
+		 * First run value iteration
+		 */
+		this.iterate();
+		/**
+		 * now extract policy from the values in {@link ValueIterationAgent#valueFunction} and set the agent's policy 
+		 *  
+		 */
+		
+		super.policy=extractPolicy();
+		
+		if (this.policy==null)
+		{
+			System.out.println("Unimplemented methods! First implement the iterate() & extractPolicy() methods");
+			//System.exit(1);
+		}
+		
+		
+		
+	}
+
+	
+	public static void main(String a[]) throws IllegalMoveException
+	{
+		//Test method to play the agent against a human agent.
+		ValueIterationAgent agent=new ValueIterationAgent();
+		
+		HumanAgent d=new HumanAgent();
+		
+		Game g=new Game(agent, d, d);
+		g.playOut();
+
+		
+
+	
+    }
+
+   	
+	
+}
@@ -0,0 +1,46 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ticTacToe.BatchedTTTEnvironment;
+import ticTacToe.Game;
+import ticTacToe.IllegalMoveException;
+
+public class TestBatchedEnvironment {
+
+	@Test
+	public void testBatchedEnvironment() throws IllegalMoveException {
+		for (BatchedTTTEnvironment.Opponent opponent: BatchedTTTEnvironment.Opponent.values()) {
+			BatchedTTTEnvironment env=new BatchedTTTEnvironment(64, opponent, 1);
+			int[] cells=new int[env.size()];
+			double[] rewards=new double[env.size()];
+			int[] next=new int[env.size()];
+			boolean[] done=new boolean[env.size()];
+			Random random=new Random(2);
+			
+			for (int step=0;step<100;step++) {
+				for (int i=0;i<env.size();i++) {
+					int legal=env.getLegalMoves(i);
+					for (int n=random.nextInt(Integer.bitCount(legal));n>0;n--)
+						legal&=legal-1;
+					cells[i]=Integer.numberOfTrailingZeros(legal);
+				}
+				env.step(cells, rewards, next, done);
+				
+				for (int i=0;i<env.size();i++) {
+					Game g=Game.inverseHash(next[i]);
+					int state=g.evaluateGameState();
+					assertEquals(state!=Game.ONGOING, done[i]);
+					assertEquals(state, env.getStatus(i));
+					assertEquals(state==Game.X_WON ? 10.0 : state==Game.O_WON ? -50.0 : state==Game.DRAW ? 0.0 : -1.0, rewards[i], 0.0);
+					// finished games start again
+					assertEquals(done[i] ? new Game('X').hashCode() : next[i], env.getState(i));
+				}
+			}
+			assertTrue(env.getEpisodes() > 0);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ticTacToe.Agent;
+import ticTacToe.AggressiveAgent;
+import ticTacToe.DefensiveAgent;
+import ticTacToe.Game;
+import ticTacToe.Move;
+import ticTacToe.RandomAgent;
+
+public class TestGame {
+
+	@Test
+	public void testSuccessorsOfUnevaluatedGame() throws Exception {
+		Game won=new Game();
+		won.executeMove('X', 0, 0);
+		won.executeMove('O', 1, 0);
+		won.executeMove('X', 0, 1);
+		won.executeMove('O', 1, 1);
+		won.executeMove('X', 0, 2);
+		assertEquals(Game.X_WON, won.getState());
+		
+		// a game from its hash isn't evaluated, but moves in it still see X's line
+		Game g=Game.inverseHash(won.hashCode());
+		assertEquals(Game.X_WON, g.simulateMove(Move.of('O', 2, 2)).getState());
+		for (Game successor: g.getAllSuccessorGames())
+			assertEquals(Game.X_WON, successor.getState());
+		g.makeMove(8);
+		assertEquals(Game.X_WON, g.getState());
+	}
+
+	@Test
+	public void testInternedMoves() throws Exception {
+		for (int code=0; code<Move.NUM_CODES; code++) {
+			Move m=Move.decode(code);
+			assertEquals(code, m.code());
+			assertSame(m, Move.of(m.who.getName(), m.x, m.y));
+			assertEquals(m, new Move(m.who.getName(), m.x, m.y));
+			assertEquals(m.hashCode(), new Move(m.who.getName(), m.x, m.y).hashCode());
+			assertSame(m, new Move(m.who.getName(), m.x, m.y).intern());
+		}
+		assertTrue(!Move.of('X', 4).equals(Move.of('O', 4)));
+		
+		// move generation hands out the interned moves, in shared lists
+		Game g=new Game();
+		g.executeMove('X', 1, 1);
+		assertSame(g.getPossibleMoves(), g.getPossibleMoves());
+		for (Move m: g.getPossibleMoves())
+			assertSame(Move.of('O', m.cell()), m);
+		for (Move m: g.getPossibleMovesByOpponent())
+			assertSame(Move.of('X', m.cell()), m);
+		Move random=new RandomAgent().getPolicy().getMove(g);
+		assertSame(Move.of('O', random.cell()), random);
+	}
+
+	@Test
+	public void testLegalMoveIteration() throws Exception {
+		int[] buffer=new int[9];
+		for (char turn: new char[] {'X', 'O'})
+			for (Game g: Game.generateAllValidGames(turn)) {
+				int mask=0;
+				for (Move m: g.getPossibleMoves())
+					mask|=1<<m.cell();
+				assertEquals(mask, g.getLegalMoveMask());
+				
+				int[] visited={0};
+				g.forEachMove(cell -> visited[0]|=1<<cell);
+				assertEquals(mask, visited[0]);
+				
+				int n=g.getLegalMoves(buffer);
+				assertEquals(Integer.bitCount(mask), n);
+				for (int i=0; i<n; i++)
+					assertTrue(i==0 || buffer[i]>buffer[i-1]);
+				
+				if (!g.isTerminal())
+					for (Agent agent: new Agent[] {new RandomAgent(), new AggressiveAgent(), new DefensiveAgent()}) {
+						Move m=agent.getMove(g);
+						assertTrue(g.isLegal(m));
+						assertTrue(m==Move.of(turn, m.cell()));
+					}
+			}
+	}
+}
@@ -0,0 +1,38 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import org.junit.Test;
+
+import ticTacToe.GameServer;
+import ticTacToe.ValueIterationAgent;
+
+public class TestGameServer {
+
+	@Test
+	public void testGameServer() throws Exception {
+		try (GameServer server=new GameServer(new ValueIterationAgent(), 0);
+				Socket socket=new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				BufferedReader in=new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				PrintWriter out=new PrintWriter(socket.getOutputStream(), true)) {
+			String first=in.readLine();
+			assertTrue(first.startsWith("MOVE "));
+			
+			// X's cell is taken, so the move is refused
+			out.println(first.substring(5));
+			assertTrue(in.readLine().startsWith("ERROR"));
+			out.println("9");
+			assertTrue(in.readLine().startsWith("ERROR"));
+			
+			out.println("NEW");
+			assertTrue(in.readLine().startsWith("MOVE "));
+			assertEquals(1, server.getSessions());
+			assertEquals(2, server.getMoves());
+		}
+	}
+}
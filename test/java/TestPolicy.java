@@ -0,0 +1,86 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+import ticTacToe.Agent;
+import ticTacToe.CompiledPolicy;
+import ticTacToe.DefensiveAgent;
+import ticTacToe.Game;
+import ticTacToe.Move;
+import ticTacToe.Policy;
+import ticTacToe.RandomAgent;
+import ticTacToe.ValueIterationAgent;
+
+public class TestPolicy {
+
+	@Test
+	public void testPolicyFile() throws Exception {
+		ValueIterationAgent agent=new ValueIterationAgent();
+		File file=File.createTempFile("policy", ".pol");
+		file.deleteOnExit();
+		agent.getPolicy().save(file.getPath());
+		
+		Policy loaded=new Policy(file.getPath());
+		for (int hash=0; hash<Game.NUM_HASHES; hash++) {
+			Game g=Game.inverseHash(hash);
+			if (g==null)
+				continue;
+			Move expected=agent.getPolicy().getMove(g);
+			Move actual=loaded.getMove(g);
+			assertEquals(String.valueOf(expected), String.valueOf(actual));
+		}
+		
+		try (RandomAccessFile f=new RandomAccessFile(file, "rw")) {
+			f.seek(100);
+			f.write(f.read()+1);
+		}
+		try {
+			new Policy(file.getPath());
+			assertTrue("a corrupt file is rejected", false);
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testPolicyCache() throws Exception {
+		File dir=File.createTempFile("policies", "");
+		dir.delete();
+		System.setProperty(Agent.POLICY_CACHE_PROPERTY, dir.getPath());
+		try {
+			ValueIterationAgent trained=new ValueIterationAgent();
+			assertEquals(1, dir.list().length);
+			
+			ValueIterationAgent cached=new ValueIterationAgent();
+			int[] results=TestPolicyIterationAgent.playAgainstEachOther(cached, new RandomAgent(), 50);
+			assertEquals(0, results[1]);
+			Game g=new Game(trained, new RandomAgent(), trained);
+			assertEquals(trained.getMove(g).toString(), cached.getMove(g).toString());
+		} finally {
+			System.clearProperty(Agent.POLICY_CACHE_PROPERTY);
+			for (File f:dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testCompiledPolicy() {
+		ValueIterationAgent agent=new ValueIterationAgent();
+		CompiledPolicy compiled=new CompiledPolicy(agent.getPolicy());
+		for (Game g: Game.generateAllValidGames('X')) {
+			assertEquals(agent.getPolicy().getMove(g), compiled.getMove(g));
+			assertSame(compiled.getMove(g), compiled.getMove(g));
+		}
+		
+		agent.freezePolicy();
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(agent, new DefensiveAgent(), 50);
+		assertEquals(0, results[1]);
+	}
+}
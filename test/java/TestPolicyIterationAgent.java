@@ -1,115 +1,183 @@
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import org.junit.Test;
-
-import ticTacToe.Agent;
-import ticTacToe.AggressiveAgent;
-import ticTacToe.DefensiveAgent;
-import ticTacToe.Game;
-import ticTacToe.IllegalMoveException;
-import ticTacToe.PolicyIterationAgent;
-import ticTacToe.RandomAgent;
-
-public class TestPolicyIterationAgent {
-
-	/**
-	 * 
-	 * @param a1
-	 * @param a2
-	 * @param howmanyTimes
-	 * @return list of results: [xWon, oWon, draw]
-	 */
-	public static int[] playAgainstEachOther(Agent a1, Agent a2, int howmanyTimes)
-	{
-		
-		Game gn;
-		//int[] results=new int[3];
-
-		int xWon = 0;
-		int oWon = 0;
-		int dr = 0;
-
-		
-		for (int i=0;i<howmanyTimes;i++) {
-			gn = new Game(a1, a2, a1);
-			try {
-				gn.playOut();
-			}
-			catch(NullPointerException e)
-			{
-				System.out.println("NullPointerException Thrown");
-				assertTrue(false);
-			}
-			catch(IllegalMoveException e)
-			{
-				System.out.println("Policy returned illegal move");
-				assertTrue(false);
-				
-			}
-			catch(Exception e)
-			{
-		
-				e.printStackTrace();
-				assertTrue(false);
-			}
-			if (gn.getState() == Game.X_WON) xWon++;
-			else if (gn.getState() == Game.O_WON) oWon++;
-			else if (gn.getState() == Game.DRAW) dr++;
-		}
-		
-		
-		
-		//System.out.println("Wins: " + xWon + " Losses: " + oWon + " Draws: " + dr);
-		int[] results = {xWon,oWon,dr};
-		
-		return results;
-		
-		
-		
-	}
-	
-	@Test
-	public void testDefensive() {
-		System.out.println("Against Defensive Agent:");
-		int[] results=playAgainstEachOther(new PolicyIterationAgent(), new DefensiveAgent(), 50);
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-	
-	@Test
-	public void testAggressive() {
-		System.out.println("Against Aggressive Agent:");
-		
-		int[] results=playAgainstEachOther(new PolicyIterationAgent(), new AggressiveAgent(), 50);
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-	
-	
-		
-		
-		
-		
-		
-	
-	
-	@Test
-	public void testRandom() {
-		System.out.println("Against Random Agent:");
-		int[] results=playAgainstEachOther(new PolicyIterationAgent(), new RandomAgent(), 50);
-		
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-
-}
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ticTacToe.Agent;
+import ticTacToe.AggressiveAgent;
+import ticTacToe.DefensiveAgent;
+import ticTacToe.Game;
+import ticTacToe.IllegalMoveException;
+import ticTacToe.PolicyIterationAgent;
+import ticTacToe.RandomAgent;
+import ticTacToe.RetrogradeAgent;
+import ticTacToe.SweepStats;
+import ticTacToe.Tournament;
+
+public class TestPolicyIterationAgent {
+
+	/**
+	 * 
+	 * @param a1
+	 * @param a2
+	 * @param howmanyTimes
+	 * @return list of results: [xWon, oWon, draw]
+	 */
+	public static int[] playAgainstEachOther(Agent a1, Agent a2, int howmanyTimes)
+	{
+		
+		Game gn;
+		//int[] results=new int[3];
+
+		int xWon = 0;
+		int oWon = 0;
+		int dr = 0;
+
+		
+		for (int i=0;i<howmanyTimes;i++) {
+			gn = new Game(a1, a2, a1);
+			try {
+				gn.playOut(false);
+			}
+			catch(NullPointerException e)
+			{
+				System.out.println("NullPointerException Thrown");
+				assertTrue(false);
+			}
+			catch(IllegalMoveException e)
+			{
+				System.out.println("Policy returned illegal move");
+				assertTrue(false);
+				
+			}
+			catch(Exception e)
+			{
+		
+				e.printStackTrace();
+				assertTrue(false);
+			}
+			if (gn.getState() == Game.X_WON) xWon++;
+			else if (gn.getState() == Game.O_WON) oWon++;
+			else if (gn.getState() == Game.DRAW) dr++;
+		}
+		
+		
+		
+		//System.out.println("Wins: " + xWon + " Losses: " + oWon + " Draws: " + dr);
+		int[] results = {xWon,oWon,dr};
+		
+		return results;
+		
+		
+		
+	}
+	
+	@Test
+	public void testDefensive() {
+		System.out.println("Against Defensive Agent:");
+		int[] results=playAgainstEachOther(new PolicyIterationAgent(), new DefensiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+	
+	@Test
+	public void testAggressive() {
+		System.out.println("Against Aggressive Agent:");
+		
+		int[] results=playAgainstEachOther(new PolicyIterationAgent(), new AggressiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+	
+	
+		
+		
+		
+		
+		
+	
+	
+	@Test
+	public void testRandom() {
+		System.out.println("Against Random Agent:");
+		int[] results=playAgainstEachOther(new PolicyIterationAgent(), new RandomAgent(), 50);
+		
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+
+	@Test
+	public void testTournamentIsReproducible() throws IllegalMoveException {
+		Tournament.Result serial=Tournament.play(new RandomAgent(), new DefensiveAgent(), 2000, 7, 1);
+		Tournament.Result parallel=Tournament.play(new RandomAgent(), new DefensiveAgent(), 2000, 7, 4);
+		System.out.println(parallel);
+		assertEquals(2000, parallel.games());
+		assertEquals(serial.xWon, parallel.xWon);
+		assertEquals(serial.oWon, parallel.oWon);
+		assertEquals(serial.draws, parallel.draws);
+	}
+
+	@Test
+	public void testEvaluationModes() {
+		RetrogradeAgent optimal=new RetrogradeAgent(0.9, 10, -50, -1, 0);
+		for (PolicyIterationAgent.Evaluation evaluation: PolicyIterationAgent.Evaluation.values()) {
+			PolicyIterationAgent pi=new PolicyIterationAgent(0.9, 10, -50, -1, 0);
+			pi.setEvaluation(evaluation);
+			pi.setThreads(2);
+			pi.initValues();
+			pi.initRandomPolicy();
+			pi.train();
+			
+			int[] sweeps=pi.getEvaluationSweeps();
+			List<SweepStats> stats=pi.getEvaluationStats();
+			assertEquals(stats.size(), sweeps.length);
+			assertTrue(sweeps.length>1);
+			if (evaluation==PolicyIterationAgent.Evaluation.EXACT) {
+				for (int s: sweeps)
+					assertEquals(1, s);
+				for (Game g: Game.generateAllValidGames('X'))
+					assertEquals(optimal.getValue(g), pi.getValue(g), 1e-9);
+			} else {
+				for (SweepStats s: stats)
+					assertTrue(s.residual<=0.1);
+			}
+			
+			int[] results=playAgainstEachOther(pi, new DefensiveAgent(), 50);
+			assertEquals(0, results[1]);
+		}
+	}
+	@Test
+	public void testModifiedPolicyIteration() {
+		RetrogradeAgent optimal=new RetrogradeAgent(0.9, 10, -50, -1, 0);
+		long fullBackups=0;
+		for (int sweeps: new int[] {0, 1, 3}) {
+			PolicyIterationAgent pi=new PolicyIterationAgent(0.9, 10, -50, -1, 0);
+			pi.setSweepsPerImprovement(sweeps);
+			pi.setConvergence(1e-9);
+			pi.initValues();
+			pi.initRandomPolicy();
+			pi.train();
+			for (int s: pi.getEvaluationSweeps())
+				assertTrue(sweeps==0 || s<=sweeps);
+			for (Game g: Game.generateAllValidGames('X'))
+				assertEquals(optimal.getValue(g), pi.getValue(g), 1e-6);
+			if (sweeps==0)
+				fullBackups=pi.getBackups();
+			else
+				assertTrue(pi.getBackups()<fullBackups);
+			
+			// the improvements after the first only re-examine some states
+			List<SweepStats> improvements=pi.getImprovementStats();
+			assertTrue(improvements.get(improvements.size()-1).backups<improvements.get(0).backups);
+		}
+	}
+}
@@ -1,45 +1,117 @@
-import static org.junit.Assert.assertEquals;
-
-import org.junit.Test;
-
-import ticTacToe.AggressiveAgent;
-import ticTacToe.DefensiveAgent;
-import ticTacToe.QLearningAgent;
-import ticTacToe.RandomAgent;
-import ticTacToe.ValueIterationAgent;
-
-public class TestQLearning {
-	@Test
-	public void testDefensive() {
-		System.out.println("Against Defensive Agent:");
-		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new QLearningAgent(), new DefensiveAgent(), 50);
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-	
-	@Test
-	public void testAggressive() {
-		System.out.println("Against Aggressive Agent:");
-		
-		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new QLearningAgent(), new AggressiveAgent(), 50);
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-
-	
-	@Test
-	public void testRandom() {
-		System.out.println("Against Random Agent:");
-		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new QLearningAgent(), new RandomAgent(), 50);
-		
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-
-}
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import ticTacToe.AggressiveAgent;
+import ticTacToe.DefensiveAgent;
+import ticTacToe.FlatQTable;
+import ticTacToe.Game;
+import ticTacToe.IllegalMoveException;
+import ticTacToe.Move;
+import ticTacToe.QLearningAgent;
+import ticTacToe.RandomAgent;
+import ticTacToe.StateIndex;
+import ticTacToe.ValueIterationAgent;
+
+public class TestQLearning {
+	@Test
+	public void testDefensive() {
+		System.out.println("Against Defensive Agent:");
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new QLearningAgent(), new DefensiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+	
+	@Test
+	public void testAggressive() {
+		System.out.println("Against Aggressive Agent:");
+		
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new QLearningAgent(), new AggressiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+
+	
+	@Test
+	public void testRandom() {
+		System.out.println("Against Random Agent:");
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new QLearningAgent(), new RandomAgent(), 50);
+		
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+
+	@Test
+	public void testFlatQTable() throws IllegalMoveException {
+		Game g=new Game('X');
+		g.executeMove('X', 0, 0);
+		g.executeMove('O', 0, 1);
+		
+		FlatQTable full=new FlatQTable();
+		full.addQValue(g, new Move('X', 0, 2), 3.0);
+		full.addQValue(g, new Move('X', 2, 2), 5.0);
+		assertEquals(3.0, full.getQValue(g, new Move('X', 0, 2)), 0.0);
+		assertEquals(5.0, full.max(g), 0.0);
+		assertEquals(8, full.argmax(g));
+		assertEquals(Double.valueOf(5.0), full.toQTable().getQValue(g, new Move('X', 2, 2)));
+		
+		// the transposed game shares its q-values in a symmetric table
+		FlatQTable symmetric=new FlatQTable(StateIndex.getSymmetricInstance());
+		symmetric.addQValue(g, new Move('X', 0, 2), 3.0);
+		Game transposed=new Game('X');
+		transposed.executeMove('X', 0, 0);
+		transposed.executeMove('O', 1, 0);
+		assertEquals(3.0, symmetric.getQValue(transposed, new Move('X', 2, 0)), 0.0);
+		assertEquals(6, symmetric.argmax(transposed));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws InterruptedException {
+		final FlatQTable table=new FlatQTable();
+		Thread[] threads=new Thread[4];
+		for (int t=0;t<threads.length;t++) {
+			threads[t]=new Thread(() -> {
+				for (int i=0;i<10000;i++)
+					table.moveTowards(0, 1.0, 0.001);
+			});
+			threads[t].start();
+		}
+		for (Thread thread: threads)
+			thread.join();
+		
+		// every update is applied to the latest value, so none is lost whatever the interleaving
+		double expected=0;
+		for (int i=0;i<40000;i++)
+			expected=(1-0.001)*expected+0.001*1.0;
+		assertEquals(expected, table.get(0), 0.0);
+	}
+
+	@Test
+	public void testCheckpoint() throws Exception {
+		File file=File.createTempFile("qtable", ".ckpt");
+		file.delete();
+		file.deleteOnExit();
+		
+		QLearningAgent trained=new QLearningAgent(new RandomAgent(), 0.1, 0, 0.9);
+		trained.setCheckpoint(file.getPath(), 1000);
+		trained.setNumEpisodes(5000);
+		trained.train();
+		
+		// the run is restored as it ended, so there are no episodes left to play
+		QLearningAgent resumed=new QLearningAgent(new RandomAgent(), 0.1, 0, 0.9);
+		resumed.setCheckpoint(file.getPath(), 1000);
+		resumed.setNumEpisodes(5000);
+		resumed.train();
+		for (Game g: Game.generateAllValidGames('X'))
+			if (!g.isTerminal())
+				assertEquals(trained.getPolicy().getMove(g), resumed.getPolicy().getMove(g));
+	}
+}
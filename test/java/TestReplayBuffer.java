@@ -0,0 +1,33 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ticTacToe.ReplayBuffer;
+
+public class TestReplayBuffer {
+
+	@Test
+	public void testReplayBuffer() {
+		ReplayBuffer buffer=new ReplayBuffer(3, 1.0);
+		for (int t=0;t<5;t++)
+			buffer.add(t, t, -1.0, t+1, false);
+		// the two oldest transitions were replaced
+		assertEquals(3, buffer.size());
+		assertEquals(3, buffer.getState(0));
+		assertEquals(4, buffer.getState(1));
+		assertEquals(2, buffer.getState(2));
+		
+		buffer.updatePriority(0, 0);
+		buffer.updatePriority(1, 100);
+		buffer.updatePriority(2, 0);
+		int[] slots=new int[16];
+		double[] weights=new double[16];
+		buffer.samplePrioritized(slots, weights, 0.4, new Random(3));
+		for (int k=0;k<slots.length;k++) {
+			assertEquals(1, slots[k]);
+			assertEquals(1.0, weights[k], 0.0);
+		}
+	}
+}
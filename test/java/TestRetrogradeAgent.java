@@ -0,0 +1,100 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import ticTacToe.AggressiveAgent;
+import ticTacToe.DefensiveAgent;
+import ticTacToe.Game;
+import ticTacToe.RandomAgent;
+import ticTacToe.RetrogradeAgent;
+import ticTacToe.RewardSweep;
+import ticTacToe.ValueIterationAgent;
+
+public class TestRetrogradeAgent {
+	@Test
+	public void testDefensive() {
+		System.out.println("Against Defensive Agent:");
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new RetrogradeAgent(), new DefensiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+	
+	@Test
+	public void testAggressive() {
+		System.out.println("Against Aggressive Agent:");
+		
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new RetrogradeAgent(), new AggressiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+
+	
+	@Test
+	public void testRandom() {
+		System.out.println("Against Random Agent:");
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new RetrogradeAgent(), new RandomAgent(), 50);
+		
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+	
+	@Test
+	public void testSamePolicyAsValueIteration() {
+		double[][] configurations={{0.9, 10, -50, -1, 0}, {0.5, 1, -1, 0, 0.5}, {0.99, 5, -10, -0.1, 2}};
+		for (double[] c: configurations) {
+			ValueIterationAgent vi=new ValueIterationAgent(c[0], c[1], c[2], c[3], c[4]);
+			vi.initValues();
+			vi.train();
+			RetrogradeAgent retro=new RetrogradeAgent(c[0], c[1], c[2], c[3], c[4]);
+			
+			for (Game g: Game.generateAllValidGames('X'))
+				assertEquals(vi.getPolicy().getMove(g), retro.getPolicy().getMove(g));
+		}
+	}
+
+	@Test
+	public void testSymmetricValues() {
+		RetrogradeAgent full=new RetrogradeAgent(0.9, 10, -50, -1, 0);
+		RetrogradeAgent symmetric=new RetrogradeAgent(0.9, 10, -50, -1, 0);
+		symmetric.setSymmetric(true);
+		symmetric.train();
+		
+		for (Game g: Game.generateAllValidGames('X'))
+			assertEquals(full.getValue(g), symmetric.getValue(g), 1e-9);
+	}
+
+
+	@Test
+	public void testRewardSweep() throws Exception {
+		List<RewardSweep.Config> configs=RewardSweep.grid(new double[] {0.5, 0.9}, new double[] {10}, new double[] {-1, -50}, new double[] {-1}, new double[] {0});
+		assertEquals(4, configs.size());
+		List<RewardSweep.Result> results=RewardSweep.solve(configs, 200, 0, 2);
+		System.out.print(RewardSweep.table(results));
+		
+		for (int i=0; i<configs.size(); i++) {
+			RewardSweep.Config c=configs.get(i);
+			RewardSweep.Result result=results.get(i);
+			assertEquals(c, result.config);
+			
+			// the same policy as solving the configuration on its own
+			RetrogradeAgent retro=new RetrogradeAgent(c.discount, c.winReward, c.loseReward, c.livingReward, c.drawReward);
+			for (Game g: Game.generateAllValidGames('X'))
+				if (!g.isTerminal())
+					assertEquals(retro.getPolicy().getMove(g), result.policy.getMove(g));
+			
+			// with lose=-1 and living=-1 losing costs no more than playing on, so only the others never lose
+			if (c.loseReward==-50)
+				for (int o=0; o<RewardSweep.OPPONENTS.length; o++)
+					assertEquals(0, result.results[o].oWon);
+		}
+	}
+
+}
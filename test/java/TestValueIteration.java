@@ -1,44 +1,132 @@
-import static org.junit.Assert.assertEquals;
-
-import org.junit.Test;
-
-import ticTacToe.AggressiveAgent;
-import ticTacToe.DefensiveAgent;
-import ticTacToe.RandomAgent;
-import ticTacToe.ValueIterationAgent;
-
-public class TestValueIteration {
-	@Test
-	public void testDefensive() {
-		System.out.println("Against Defensive Agent:");
-		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new ValueIterationAgent(), new DefensiveAgent(), 50);
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-	
-	@Test
-	public void testAggressive() {
-		System.out.println("Against Aggressive Agent:");
-		
-		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new ValueIterationAgent(), new AggressiveAgent(), 50);
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-
-	
-	@Test
-	public void testRandom() {
-		System.out.println("Against Random Agent:");
-		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new ValueIterationAgent(), new RandomAgent(), 50);
-		
-		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
-		assertEquals(0, results[1]);
-		
-
-	}
-
-}
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import ticTacToe.AggressiveAgent;
+import ticTacToe.DefensiveAgent;
+import ticTacToe.Game;
+import ticTacToe.RandomAgent;
+import ticTacToe.ValueIterationAgent;
+
+public class TestValueIteration {
+	@Test
+	public void testDefensive() {
+		System.out.println("Against Defensive Agent:");
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new ValueIterationAgent(), new DefensiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+	
+	@Test
+	public void testAggressive() {
+		System.out.println("Against Aggressive Agent:");
+		
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new ValueIterationAgent(), new AggressiveAgent(), 50);
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+
+	
+	@Test
+	public void testRandom() {
+		System.out.println("Against Random Agent:");
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(new ValueIterationAgent(), new RandomAgent(), 50);
+		
+		System.out.println("Wins: " + results[0] + " Losses: " + results[1] + " Draws: " + results[2]);
+		assertEquals(0, results[1]);
+		
+
+	}
+
+	@Test
+	public void testParallelSweeps() {
+		ValueIterationAgent sequential=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		sequential.initValues();
+		sequential.train();
+		
+		ValueIterationAgent parallel=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		parallel.initValues();
+		parallel.setThreads(4);
+		parallel.train();
+		
+		assertArrayEquals(sequential.getResiduals(), parallel.getResiduals(), 0.0);
+		for (Game g: Game.generateAllValidGames('X'))
+			assertEquals(sequential.getPolicy().getMove(g), parallel.getPolicy().getMove(g));
+	}
+
+	@Test
+	public void testSchedules() {
+		ValueIterationAgent jacobi=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		jacobi.initValues();
+		jacobi.train();
+		
+		for (ValueIterationAgent.Schedule schedule: ValueIterationAgent.Schedule.values()) {
+			ValueIterationAgent agent=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+			agent.initValues();
+			agent.setSchedule(schedule);
+			agent.train();
+			System.out.println(schedule + ": sweeps=" + agent.getSweeps() + " backups=" + agent.getBackups());
+			for (Game g: Game.generateAllValidGames('X'))
+				assertEquals(jacobi.getPolicy().getMove(g), agent.getPolicy().getMove(g));
+		}
+		
+	}
+
+	@Test
+	public void testSymmetric() {
+		ValueIterationAgent agent=new ValueIterationAgent(0.9, 10, -10, 0, 0);
+		agent.setSymmetric(true);
+		agent.train();
+		assertTrue(agent.getPolicy().isSymmetric());
+		
+		int[] results=TestPolicyIterationAgent.playAgainstEachOther(agent, new DefensiveAgent(), 50);
+		assertEquals(0, results[1]);
+		results=TestPolicyIterationAgent.playAgainstEachOther(agent, new RandomAgent(), 50);
+		assertEquals(0, results[1]);
+	}
+
+	@Test
+	public void testCheckpoint() throws Exception {
+		File file=File.createTempFile("values", ".ckpt");
+		file.delete();
+		file.deleteOnExit();
+		
+		ValueIterationAgent full=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		full.initValues();
+		full.setConvergence(1e-9, 0);
+		full.train();
+		
+		ValueIterationAgent interrupted=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		interrupted.initValues();
+		interrupted.setConvergence(1e-9, 3);
+		interrupted.setCheckpoint(file.getPath(), 1);
+		interrupted.train();
+		
+		ValueIterationAgent resumed=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		resumed.initValues();
+		resumed.setConvergence(1e-9, 0);
+		resumed.setCheckpoint(file.getPath(), 2);
+		resumed.train();
+		assertEquals(full.getSweeps()-3, resumed.getSweeps());
+		for (Game g: Game.generateAllValidGames('X'))
+			assertEquals(full.getPolicy().getMove(g), resumed.getPolicy().getMove(g));
+		
+		// the checkpoint can also be set before the values are initialised
+		File fresh=File.createTempFile("values", ".ckpt");
+		fresh.delete();
+		fresh.deleteOnExit();
+		ValueIterationAgent uninitialised=new ValueIterationAgent(0.9, 10, -50, -1, 0);
+		uninitialised.setCheckpoint(fresh.getPath(), 1);
+		uninitialised.setConvergence(1e-9, 0);
+		uninitialised.train();
+		assertEquals(full.getSweeps(), uninitialised.getSweeps());
+	}
+}